@@ -0,0 +1,146 @@
+package org.example.bench;
+
+import org.example.db.CustomerSeeder;
+import org.example.db.Database;
+import org.example.db.DatabaseConfig;
+import org.example.db.SchemaInitializer;
+import org.example.db.UserSeeder;
+import org.example.service.BarcodeIndex;
+import org.example.service.CategoryService;
+import org.example.service.ProductCatalog;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+// A throw-away SQLite database for one benchmark trial, seeded to a given scale.
+// Uses the normal startup path (migrations, seeders) on a temp file, then bulk-inserts
+// 'products' products spread over products/200 extra categories and suppliers.
+// Pool settings still come from -Dmarchi.db.* (e.g. -jvmArgsAppend -Dmarchi.db.mode=ROLLBACK_JOURNAL).
+// The services print a line per call; that console output is dropped unless -Dmarchi.bench.verbose=true,
+// so the numbers measure the service, not the terminal.
+public final class BenchDatabase {
+
+    // Stock big enough that no benchmark ever runs out
+    public static final int STOCK = 1_000_000_000;
+    public static final int ADMIN_ID = 1;
+
+    private static final String[] ADJECTIVES = {
+            "Organic", "Fresh", "Frozen", "Smoked", "Light", "Classic", "Spicy", "Sweet", "Whole", "Golden"
+    };
+    private static final String[] NOUNS = {
+            "Apple Juice", "Milk", "Cheddar", "Chicken Breast", "Salmon", "Baguette", "Yogurt", "Rice",
+            "Pasta", "Olive Oil", "Coffee", "Tea", "Cereal", "Shampoo", "Dish Soap", "Dog Food"
+    };
+
+    private final Path file;
+    private final int products;
+    private final PrintStream console = System.out;
+
+    private BenchDatabase(Path file, int products) {
+        this.file = file;
+        this.products = products;
+    }
+
+    public static BenchDatabase create(int products) throws IOException, SQLException {
+        return create(products, DatabaseConfig.fromSystemProperties());
+    }
+
+    // Same, with these pool settings (the url is replaced by the temp file's)
+    public static BenchDatabase create(int products, DatabaseConfig config) throws IOException, SQLException {
+        Path file = Files.createTempFile("marchi-bench-", ".db");
+        BenchDatabase db = new BenchDatabase(file, products);
+
+        if (!Boolean.getBoolean("marchi.bench.verbose")) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        Database.configure(config.url("jdbc:sqlite:" + file));
+        SchemaInitializer.init();
+        UserSeeder.seedDefaultAdmin();
+        CustomerSeeder.seed();
+        db.seed();
+
+        // Start every trial from the same warm state, whatever ran in this JVM before
+        ProductCatalog.shared().invalidateAll();
+        ProductCatalog.shared().warmUp();
+        BarcodeIndex.shared().reload();
+        CategoryService.invalidateIndex();
+        return db;
+    }
+
+    public int products() {
+        return products;
+    }
+
+    // Name of product #i as seeded, e.g. "Golden Coffee 42"
+    public static String productName(int i) {
+        return ADJECTIVES[i % ADJECTIVES.length] + " " + NOUNS[(i / ADJECTIVES.length) % NOUNS.length] + " " + i;
+    }
+
+    // Product ids are 1..products; picks one uniformly
+    public int randomProductId(SplittableRandom rand) {
+        return 1 + rand.nextInt(products);
+    }
+
+    public void close() throws IOException {
+        Database.shutdown();
+        System.setOut(console);
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+        Files.deleteIfExists(Path.of(file + "-journal"));
+    }
+
+    // ---- seeding ----
+
+    private void seed() throws SQLException {
+        int groups = Math.max(1, products / 200);
+
+        try (Connection conn = Database.getWriteConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement cat = conn.prepareStatement("INSERT INTO categories (name) VALUES (?)");
+                 PreparedStatement sup = conn.prepareStatement("INSERT INTO suppliers (name) VALUES (?)")) {
+                for (int g = 0; g < groups; g++) {
+                    cat.setString(1, "Bench Category " + g);
+                    cat.addBatch();
+                    sup.setString(1, "Bench Supplier " + g);
+                    sup.addBatch();
+                }
+                cat.executeBatch();
+                sup.executeBatch();
+            }
+
+            String insertProduct = """
+                INSERT INTO products
+                (name, barcode, category_id, supplier_id, purchase_price, selling_price, stock_quantity, created_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+            """;
+            SplittableRandom rand = new SplittableRandom(42);
+            try (PreparedStatement ps = conn.prepareStatement(insertProduct)) {
+                for (int i = 0; i < products; i++) {
+                    double price = 0.5 + rand.nextInt(5_000) / 100.0;
+                    ps.setString(1, productName(i));
+                    ps.setString(2, String.format("200%010d", i));
+                    // The 17 categories and suppliers from SchemaInitializer come first
+                    ps.setInt(3, 1 + rand.nextInt(17 + groups));
+                    ps.setInt(4, 1 + rand.nextInt(17 + groups));
+                    ps.setDouble(5, price * 0.7);
+                    ps.setDouble(6, price);
+                    ps.setInt(7, STOCK);
+                    ps.addBatch();
+                    if (i % 1_000 == 999) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.bench;
+
+import org.example.model.Cart;
+import org.example.service.cashier.InvoiceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Checkout: one invoice per call (own transaction, no shift), and the cart preview total
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark extends SeededState {
+
+    @Param({"1", "5", "20", "50"})
+    public int basketSize;
+
+    private final InvoiceService invoiceService = new InvoiceService();
+    private Cart cart;
+
+    @Setup(Level.Trial)
+    public void fillCart() {
+        SplittableRandom rand = new SplittableRandom(7);
+        cart = new Cart(basketSize);
+        while (cart.size() < Math.min(basketSize, products)) {
+            cart.add(1 + rand.nextInt(products), 1 + rand.nextInt(3));
+        }
+    }
+
+    @Benchmark
+    public boolean createInvoice() {
+        return invoiceService.createInvoice(BenchDatabase.ADMIN_ID, 0, null, cart, 1_000_000_000.0);
+    }
+
+    @Benchmark
+    public double calculateCartTotal() {
+        return invoiceService.calculateCartTotal(cart);
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.bench;
+
+import org.example.db.DatabaseConfig;
+import org.example.db.StorageMode;
+import org.example.model.Cart;
+import org.example.service.cashier.InvoiceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Concurrent checkout in both storage modes: 8 lanes selling single items of the same
+// 2 products. Doubles as a check: the trial fails if any sale was refused (e.g. SQLITE_BUSY
+// from two transactions trying to upgrade their read locks), since stock never runs out.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ConcurrentCheckoutBenchmark {
+
+    @Param({"WAL", "ROLLBACK_JOURNAL"})
+    public StorageMode storageMode;
+
+    private final InvoiceService invoiceService = new InvoiceService();
+    private final LongAdder refused = new LongAdder();
+    private BenchDatabase db;
+
+    @State(Scope.Thread)
+    public static class Lane {
+        final Cart[] carts = {new Cart(1), new Cart(1)};
+        int next;
+
+        @Setup(Level.Trial)
+        public void fill() {
+            carts[0].add(1, 1);
+            carts[1].add(2, 1);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void openDatabase() throws Exception {
+        db = BenchDatabase.create(100, DatabaseConfig.fromSystemProperties().storageMode(storageMode));
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws Exception {
+        db.close();
+        if (refused.sum() > 0) {
+            throw new IllegalStateException(refused.sum() + " concurrent sales refused in " + storageMode + " mode");
+        }
+    }
+
+    @Benchmark
+    public boolean createInvoice(Lane lane) {
+        boolean ok = invoiceService.createInvoice(BenchDatabase.ADMIN_ID, 0, null, lane.carts[lane.next++ & 1], 1_000_000_000.0, true);
+        if (!ok) refused.increment();
+        return ok;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.bench;
+
+import org.example.model.Category;
+import org.example.model.User;
+import org.example.service.AuthService;
+import org.example.service.CategoryService;
+import org.example.service.StockManagerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Read paths: stock lookups, login, category filter
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark extends SeededState {
+
+    // Prefixes of seeded product names; each matches a different share of the catalog
+    private static final String[] NAME_QUERIES = {"golden cof", "milk", "organic apple", "smoked salmon 1"};
+
+    private final StockManagerService stockService = new StockManagerService();
+    private final AuthService authService = new AuthService();
+    private final CategoryService categoryService = new CategoryService();
+    private final SplittableRandom rand = new SplittableRandom(13);
+    private int next = 0;
+
+    @Benchmark
+    public boolean checkStockById() {
+        return stockService.checkStock(String.valueOf(db.randomProductId(rand)), 0);
+    }
+
+    @Benchmark
+    public boolean checkStockByName() {
+        return stockService.checkStock(NAME_QUERIES[next++ & 3], 0);
+    }
+
+    @Benchmark
+    public User login() {
+        return authService.login("admin", "admin123");
+    }
+
+    @Benchmark
+    public List<Category> filterCategoriesByName() {
+        return categoryService.filterCategoriesByName((next++ & 1) == 0 ? "bench category 1" : "ry");
+    }
+}
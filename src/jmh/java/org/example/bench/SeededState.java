@@ -0,0 +1,29 @@
+package org.example.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Base of every benchmark: a fresh temp database per trial.
+// Scale with -p products=100000 (default 10,000 products).
+@State(Scope.Benchmark)
+public abstract class SeededState {
+
+    @Param("10000")
+    public int products;
+
+    protected BenchDatabase db;
+
+    @Setup(Level.Trial)
+    public void openDatabase() throws Exception {
+        db = BenchDatabase.create(products);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws Exception {
+        db.close();
+    }
+}
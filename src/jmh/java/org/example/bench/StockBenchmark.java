@@ -0,0 +1,35 @@
+package org.example.bench;
+
+import org.example.service.StockManagerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Stock movements: one product row update + one stock_movements row per call
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockBenchmark extends SeededState {
+
+    private final StockManagerService stockService = new StockManagerService();
+    private final SplittableRandom rand = new SplittableRandom(11);
+
+    @Benchmark
+    public void stockIn() {
+        stockService.stockIn(db.randomProductId(rand), 5, BenchDatabase.ADMIN_ID);
+    }
+
+    @Benchmark
+    public void stockOut() {
+        stockService.stockOut(db.randomProductId(rand), 1, BenchDatabase.ADMIN_ID);
+    }
+}
@@ -11,9 +11,12 @@ import java.util.Scanner;
 
 public class Main {
     public static void main(String[] args) {
+        org.example.jfr.FlightRecording.startIfRequested();
         SchemaInitializer.init();
         UserSeeder.seedDefaultAdmin();
         org.example.db.CustomerSeeder.seed();
+        org.example.service.ProductCatalog.shared().warmUp();
+        org.example.service.BarcodeIndex.shared().reload();
 
         Scanner sc = new Scanner(System.in);
         AuthService auth = new AuthService();
@@ -0,0 +1,279 @@
+package org.example.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// A small bounded pool of warm SQLite connections.
+// Physical connections are opened lazily (up to maxSize), get their pragmas once,
+// keep their own prepared statement cache, and are handed out wrapped in a proxy
+// whose close() returns them to the pool.
+public class ConnectionPool implements AutoCloseable {
+
+    private final String name;
+    private final String url;
+    private final Properties properties;
+    private final List<String> initSql;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Physical> idle = new ConcurrentLinkedDeque<>();
+    private final Set<Lease> leased = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed = false;
+
+    // ---- lifecycle stats ----
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    // A real SQLite connection together with the statements prepared on it
+    private record Physical(Connection conn, StatementCache statements) {}
+
+    public ConnectionPool(String name, String url, Properties properties, List<String> initSql,
+                          int maxSize, long borrowTimeoutMillis, long leakThresholdMillis, int statementCacheSize) {
+        this.name = name;
+        this.url = url;
+        this.properties = properties;
+        this.initSql = List.copyOf(initSql);
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    // 1. BORROW: waits (bounded) for a free slot, reuses an idle connection or opens a new one
+    public Connection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool '" + name + "' is closed");
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                int suspected = detectLeaks();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a '" + name
+                        + "' connection (active=" + active.get() + ", suspected leaks=" + suspected + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        long waited = System.nanoTime() - start;
+        borrows.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        Physical physical;
+        try {
+            physical = takeIdleOrOpen();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        Lease lease = new Lease(physical);
+        leased.add(lease);
+        active.incrementAndGet();
+        Connection proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, lease);
+        lease.proxy = proxy;
+        return proxy;
+    }
+
+    private Physical takeIdleOrOpen() throws SQLException {
+        Physical p;
+        while ((p = idle.pollFirst()) != null) {
+            if (!p.conn().isClosed()) return p; // most recently used first = warmest page cache
+            opened.decrementAndGet();
+        }
+        return open();
+    }
+
+    private Physical open() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, properties);
+        try (Statement st = conn.createStatement()) {
+            for (String sql : initSql) {
+                st.execute(sql);
+            }
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        opened.incrementAndGet();
+        return new Physical(conn, new StatementCache(conn, statementCacheSize, statementCounters));
+    }
+
+    // 2. RETURN: reset transaction state so the next borrower gets a clean connection
+    private void release(Lease lease) {
+        leased.remove(lease);
+        active.decrementAndGet();
+
+        long heldMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lease.borrowedAt);
+        if (heldMillis > leakThresholdMillis && !lease.reportedAsLeak) {
+            leaks.increment();
+            System.out.println("⚠️ Connection from pool '" + name + "' was held for " + heldMillis
+                    + " ms by " + lease.owner);
+        }
+
+        Physical physical = lease.physical;
+        Connection conn = physical.conn();
+        try {
+            physical.statements().releaseAll();
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            if (closed) {
+                physical.statements().closeAll();
+                conn.close();
+                opened.decrementAndGet();
+            } else {
+                idle.offerFirst(physical);
+            }
+        } catch (SQLException e) {
+            discard(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(Physical physical) {
+        discarded.increment();
+        opened.decrementAndGet();
+        physical.statements().closeAll();
+        try {
+            physical.conn().close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    // Counts connections held longer than the leak threshold that were never returned.
+    public int detectLeaks() {
+        int suspected = 0;
+        long now = System.nanoTime();
+        for (Lease lease : leased) {
+            if (TimeUnit.NANOSECONDS.toMillis(now - lease.borrowedAt) > leakThresholdMillis) {
+                suspected++;
+                if (!lease.reportedAsLeak) {
+                    lease.reportedAsLeak = true;
+                    leaks.increment();
+                }
+            }
+        }
+        return suspected;
+    }
+
+    public PoolStats stats() {
+        detectLeaks();
+        long count = borrows.sum();
+        return new PoolStats(
+                name,
+                maxSize,
+                opened.get(),
+                active.get(),
+                idle.size(),
+                count,
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / count),
+                TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()),
+                timeouts.sum(),
+                leaks.sum(),
+                discarded.sum(),
+                statementCounters.hits.sum(),
+                statementCounters.misses.sum(),
+                statementCounters.evictions.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Physical p;
+        while ((p = idle.pollFirst()) != null) {
+            p.statements().closeAll();
+            try {
+                p.conn().close();
+            } catch (SQLException ignored) {
+            }
+            opened.decrementAndGet();
+        }
+    }
+
+    // One checkout of a physical connection. Acts as the proxy handler, so every
+    // call made through the borrowed Connection goes through invoke().
+    private final class Lease implements InvocationHandler {
+        private final Physical physical;
+        private Connection proxy;
+        private final long borrowedAt = System.nanoTime();
+        private final String owner = Thread.currentThread().getName();
+        private volatile boolean reportedAsLeak = false;
+        private boolean returned = false;
+
+        private Lease(Physical physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    synchronized (this) {
+                        if (returned) return null;
+                        returned = true;
+                    }
+                    release(this);
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || physical.conn().isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + name + "]" + physical.conn();
+                }
+            }
+            if (returned) throw new SQLException("Connection has already been returned to the pool");
+
+            // prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the cache
+            if (method.getName().equals("prepareStatement") && args.length <= 2
+                    && (args.length == 1 || args[1] instanceof Integer)) {
+                int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return physical.statements().prepare(this.proxy, (String) args[0], keys);
+            }
+            try {
+                return method.invoke(physical.conn(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,21 +1,106 @@
 package org.example.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 
 public class Database {
     // Creates supermarket.db in your project folder (easy for school projects)
-    private static final String URL = "jdbc:sqlite:supermarket.db";
+    private static volatile DatabaseConfig config = DatabaseConfig.fromSystemProperties();
 
+    // One serialized writer + a read-only pool, in both storage modes
+    private static volatile ConnectionPool writer;
+    private static volatile ConnectionPool readers;
+
+    // Must be called before the first getConnection() to take effect
+    public static synchronized void configure(DatabaseConfig newConfig) {
+        shutdown();
+        config = newConfig;
+    }
+
+    public static DatabaseConfig config() {
+        return config;
+    }
+
+    // Default role for code that both reads and writes: the writer connection
     public static Connection getConnection() throws SQLException {
-        Connection conn = DriverManager.getConnection(URL);
+        return getWriteConnection();
+    }
+
+    // For mutating paths (checkout, stock movements, inserts). Only one is handed out at a time,
+    // so writers queue here instead of failing with SQLITE_BUSY.
+    public static Connection getWriteConnection() throws SQLException {
+        ensureStarted();
+        return writer.borrow();
+    }
+
+    // For query-only paths (reports, listings, lookups). Read-only; they run in parallel with
+    // each other, and in WAL mode with the writer too.
+    public static Connection getReadConnection() throws SQLException {
+        ensureStarted();
+        return readers.borrow();
+    }
 
-        // IMPORTANT: enable foreign keys in SQLite
-        try (Statement st = conn.createStatement()) {
-            st.execute("PRAGMA foreign_keys = ON;");
+    public static List<PoolStats> stats() {
+        ensureStarted();
+        List<PoolStats> stats = new ArrayList<>();
+        stats.add(writer.stats());
+        if (readers != writer) stats.add(readers.stats());
+        return stats;
+    }
+
+    public static synchronized void shutdown() {
+        if (readers != null && readers != writer) readers.close();
+        if (writer != null) writer.close();
+        readers = null;
+        writer = null;
+    }
+
+    private static void ensureStarted() {
+        if (writer != null && readers != null) return;
+        synchronized (Database.class) {
+            if (writer != null && readers != null) return;
+
+            DatabaseConfig c = config;
+            List<String> common = List.of(
+                    "PRAGMA foreign_keys = ON;", // IMPORTANT: enable foreign keys in SQLite
+                    "PRAGMA busy_timeout = " + c.getBusyTimeoutMillis() + ";",
+                    "PRAGMA synchronous = " + c.getSynchronous() + ";"
+            );
+
+            // Writer: ONE connection in both modes, so writers queue here instead of racing for
+            // SQLite's single write lock. It also takes that lock up front on BEGIN (IMMEDIATE):
+            // a deferred transaction would read first and then fail (SQLITE_BUSY) trying to
+            // upgrade its read lock while another connection holds one.
+            Properties writerProps = new Properties();
+            writerProps.setProperty("transaction_mode", "IMMEDIATE");
+            boolean wal = c.getStorageMode() == StorageMode.WAL;
+            List<String> writerInit = new ArrayList<>(List.of(wal ? "PRAGMA journal_mode = WAL;" : "PRAGMA journal_mode = DELETE;"));
+            writerInit.addAll(common);
+            ConnectionPool w = new ConnectionPool("writer", c.getUrl(), writerProps, writerInit,
+                    1, c.getBorrowTimeoutMillis(), c.getLeakThresholdMillis(), c.getStatementCacheSize());
+
+            // Open the writer once so the file is already in its journal mode before any reader attaches
+            try {
+                w.borrow().close();
+            } catch (SQLException e) {
+                w.close();
+                throw new RuntimeException("❌ Failed to open database in " + c.getStorageMode() + " mode", e);
+            }
+
+            // Readers: read-only. Under WAL they never block the writer; under a rollback
+            // journal the writer's commit waits for them (busy_timeout).
+            List<String> readerInit = new ArrayList<>(common);
+            readerInit.add("PRAGMA query_only = ON;");
+            readers = new ConnectionPool("readers", c.getUrl(), new Properties(), readerInit,
+                    c.getPoolSize(), c.getBorrowTimeoutMillis(), c.getLeakThresholdMillis(), c.getStatementCacheSize());
+            writer = w;
         }
-        return conn;
+    }
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(Database::shutdown, "db-shutdown"));
     }
 }
@@ -0,0 +1,91 @@
+package org.example.db;
+
+// Settings for the connection pool behind Database.
+// Defaults can be overridden with -Dmarchi.db.* system properties, or in code
+// by calling Database.configure(...) before the first connection is borrowed.
+public class DatabaseConfig {
+
+    private String url = "jdbc:sqlite:supermarket.db";
+    // Read-only pool size (the writer pool always holds one connection)
+    private int poolSize = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private long borrowTimeoutMillis = 5_000;
+    private long leakThresholdMillis = 30_000;
+    private StorageMode storageMode = StorageMode.WAL;
+    private String synchronous; // null = the storage mode's default, see getSynchronous()
+    private int busyTimeoutMillis = 5_000;
+    private int statementCacheSize = 64;
+
+    public static DatabaseConfig defaults() {
+        return new DatabaseConfig();
+    }
+
+    public static DatabaseConfig fromSystemProperties() {
+        DatabaseConfig config = new DatabaseConfig();
+        config.url = System.getProperty("marchi.db.url", config.url);
+        config.poolSize = Integer.getInteger("marchi.db.poolSize", config.poolSize);
+        config.borrowTimeoutMillis = Long.getLong("marchi.db.borrowTimeoutMs", config.borrowTimeoutMillis);
+        config.leakThresholdMillis = Long.getLong("marchi.db.leakThresholdMs", config.leakThresholdMillis);
+        config.storageMode = StorageMode.valueOf(System.getProperty("marchi.db.mode", config.storageMode.name()));
+        config.synchronous = System.getProperty("marchi.db.synchronous");
+        config.busyTimeoutMillis = Integer.getInteger("marchi.db.busyTimeoutMs", config.busyTimeoutMillis);
+        config.statementCacheSize = Integer.getInteger("marchi.db.statementCacheSize", config.statementCacheSize);
+        return config;
+    }
+
+    public DatabaseConfig url(String url) {
+        this.url = url;
+        return this;
+    }
+
+    public DatabaseConfig poolSize(int poolSize) {
+        if (poolSize < 1) throw new IllegalArgumentException("poolSize must be >= 1");
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public DatabaseConfig borrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        return this;
+    }
+
+    public DatabaseConfig leakThresholdMillis(long leakThresholdMillis) {
+        this.leakThresholdMillis = leakThresholdMillis;
+        return this;
+    }
+
+    public DatabaseConfig storageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+        return this;
+    }
+
+    // OFF / NORMAL / FULL / EXTRA, overriding the mode's default: NORMAL under WAL (only the
+    // last commits can be lost on power failure, never corrupted, and most fsyncs are skipped),
+    // FULL under ROLLBACK_JOURNAL (where NORMAL can corrupt the file on power failure)
+    public DatabaseConfig synchronous(String synchronous) {
+        this.synchronous = synchronous;
+        return this;
+    }
+
+    public DatabaseConfig busyTimeoutMillis(int busyTimeoutMillis) {
+        this.busyTimeoutMillis = busyTimeoutMillis;
+        return this;
+    }
+
+    // Prepared statements kept per physical connection (LRU); 0 disables reuse
+    public DatabaseConfig statementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
+    public String getUrl() { return url; }
+    public int getPoolSize() { return poolSize; }
+    public long getBorrowTimeoutMillis() { return borrowTimeoutMillis; }
+    public long getLeakThresholdMillis() { return leakThresholdMillis; }
+    public StorageMode getStorageMode() { return storageMode; }
+    public String getSynchronous() {
+        if (synchronous != null) return synchronous;
+        return storageMode == StorageMode.WAL ? "NORMAL" : "FULL";
+    }
+    public int getBusyTimeoutMillis() { return busyTimeoutMillis; }
+    public int getStatementCacheSize() { return statementCacheSize; }
+}
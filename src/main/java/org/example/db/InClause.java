@@ -0,0 +1,40 @@
+package org.example.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Helper for "WHERE id IN (?, ?, ...)" queries over a variable number of ids.
+// The placeholder count is rounded up to a power of two (padding with the last id),
+// so a handful of SQL texts cover every list size and stay hot in the statement cache.
+public final class InClause {
+
+    private static final int MIN_BUCKET = 8;
+
+    private InClause() {
+    }
+
+    public static int bucketSize(int count) {
+        int bucket = MIN_BUCKET;
+        while (bucket < count) bucket <<= 1;
+        return bucket;
+    }
+
+    // "?, ?, ?" for the bucket that fits count values
+    public static String placeholders(int count) {
+        int bucket = bucketSize(count);
+        StringBuilder sb = new StringBuilder(bucket * 3);
+        for (int i = 0; i < bucket; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    // Binds values[0..count) starting at parameter index 'first', then pads the bucket
+    public static void bind(PreparedStatement ps, int first, int[] values, int count) throws SQLException {
+        int bucket = bucketSize(count);
+        for (int i = 0; i < bucket; i++) {
+            ps.setInt(first + i, values[Math.min(i, count - 1)]);
+        }
+    }
+}
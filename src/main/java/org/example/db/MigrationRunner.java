@@ -0,0 +1,210 @@
+package org.example.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Versioned schema migrations.
+// Migrations are SQL files in resources/db/migration named V<version>__<description>.sql and
+// listed in MIGRATIONS in the order they must run. Each one is applied once, in its own
+// transaction, and recorded in schema_version with a checksum of its content. Editing a
+// migration that already ran is refused: add a new one instead.
+public class MigrationRunner {
+
+    // ⚠️ Append only. Never edit or reorder a migration that has shipped.
+    private static final List<String> MIGRATIONS = List.of(
+            "V1__baseline.sql",
+            "V2__hot_path_indexes.sql",
+            "V3__shift_running_totals.sql",
+            "V4__product_search_index.sql",
+            "V5__stock_movement_reference.sql",
+            "V6__export_checkpoints.sql",
+            "V7__daily_sales_summaries.sql",
+            "V8__sales_stock_movements.sql"
+    );
+
+    private static final String LOCATION = "db/migration/";
+
+    record Migration(int version, String description, String sql, String checksum) {}
+
+    // Applies every pending migration; returns how many ran
+    public static int migrate(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    checksum TEXT NOT NULL,
+                    applied_at DATETIME DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+        }
+
+        Map<Integer, String> applied = appliedChecksums(conn);
+        int ran = 0;
+        int previous = 0;
+
+        for (String file : MIGRATIONS) {
+            Migration m = load(file);
+            if (m.version() <= previous) {
+                throw new IllegalStateException("Migrations out of order: " + file + " after V" + previous);
+            }
+            previous = m.version();
+
+            String checksum = applied.remove(m.version());
+            if (checksum != null) {
+                if (!checksum.equals(m.checksum())) {
+                    throw new IllegalStateException("Migration " + file + " was modified after it was applied (checksum "
+                            + checksum + " in database, " + m.checksum() + " on disk)");
+                }
+                continue;
+            }
+
+            apply(conn, m);
+            System.out.println("✅ Applied migration V" + m.version() + " (" + m.description() + ")");
+            ran++;
+        }
+
+        if (!applied.isEmpty()) {
+            System.out.println("⚠️ Database has migrations this build doesn't know about: " + applied.keySet());
+        }
+        return ran;
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) applied.put(rs.getInt(1), rs.getString(2));
+        }
+        return applied;
+    }
+
+    private static void apply(Connection conn, Migration m) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement()) {
+            for (String sql : splitStatements(m.sql())) {
+                st.execute(sql);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)")) {
+                ps.setInt(1, m.version());
+                ps.setString(2, m.description());
+                ps.setString(3, m.checksum());
+                ps.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw new SQLException("Migration V" + m.version() + " (" + m.description() + ") failed: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    static Migration load(String file) {
+        int sep = file.indexOf("__");
+        if (!file.startsWith("V") || sep < 0 || !file.endsWith(".sql")) {
+            throw new IllegalStateException("Bad migration file name: " + file);
+        }
+        int version = Integer.parseInt(file.substring(1, sep));
+        String description = file.substring(sep + 2, file.length() - 4).replace('_', ' ');
+
+        try (InputStream in = MigrationRunner.class.getClassLoader().getResourceAsStream(LOCATION + file)) {
+            if (in == null) throw new IllegalStateException(file + " not found in resources");
+            // Line endings normalised so a git checkout on Windows doesn't change the checksum
+            String sql = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            return new Migration(version, description, sql, Long.toHexString(crc.getValue()));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read " + file, e);
+        }
+    }
+
+    // Splits a script on ';', ignoring semicolons inside quotes, comments and
+    // CREATE TRIGGER ... BEGIN ... END bodies.
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        String lastWord = "";
+        int n = script.length();
+
+        for (int i = 0; i < n; i++) {
+            char c = script.charAt(i);
+
+            // -- line comment
+            if (c == '-' && i + 1 < n && script.charAt(i + 1) == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? n : end;
+                current.append('\n');
+                continue;
+            }
+            // /* block comment */
+            if (c == '/' && i + 1 < n && script.charAt(i + 1) == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 1;
+                current.append(' ');
+                continue;
+            }
+            // 'string' or "identifier" (doubled quote = escaped quote)
+            if (c == '\'' || c == '"') {
+                int j = i + 1;
+                while (j < n) {
+                    if (script.charAt(j) == c) {
+                        if (j + 1 < n && script.charAt(j + 1) == c) { j += 2; continue; }
+                        break;
+                    }
+                    j++;
+                }
+                current.append(script, i, Math.min(j + 1, n));
+                i = j;
+                lastWord = "";
+                continue;
+            }
+
+            if (Character.isLetterOrDigit(c) || c == '_') {
+                word.append(c);
+            } else if (word.length() > 0) {
+                lastWord = word.toString().toUpperCase();
+                word.setLength(0);
+            }
+
+            if (c == ';') {
+                String stmt = current.toString().trim();
+                if (isTrigger(stmt) && !lastWord.equals("END")) {
+                    current.append(c); // still inside the trigger body
+                    continue;
+                }
+                if (!stmt.isEmpty()) statements.add(stmt);
+                current.setLength(0);
+                lastWord = "";
+                continue;
+            }
+            current.append(c);
+        }
+
+        String tail = current.toString().trim();
+        if (!tail.isEmpty()) statements.add(tail);
+        return statements;
+    }
+
+    private static boolean isTrigger(String stmt) {
+        String head = stmt.length() > 64 ? stmt.substring(0, 64) : stmt;
+        head = head.toUpperCase().replaceAll("\\s+", " ");
+        return head.startsWith("CREATE TRIGGER") || head.startsWith("CREATE TEMP TRIGGER")
+                || head.startsWith("CREATE TEMPORARY TRIGGER");
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.db;
+
+// Point-in-time snapshot of a ConnectionPool's lifecycle counters.
+public record PoolStats(
+        String pool,
+        int maxSize,
+        int open,
+        int active,
+        int idle,
+        long borrows,
+        long avgWaitMicros,
+        long maxWaitMicros,
+        long timeouts,
+        long leaksDetected,
+        long discarded,
+        long statementCacheHits,
+        long statementCacheMisses,
+        long statementCacheEvictions
+) {
+    // Share of prepareStatement calls that skipped SQLite's parse/plan step
+    public double statementCacheHitRate() {
+        long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0 : (double) statementCacheHits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-7s size=%d open=%d active=%d idle=%d borrows=%d wait(avg=%dµs max=%dµs) timeouts=%d leaks=%d discarded=%d stmt(hits=%d misses=%d evictions=%d hitRate=%.1f%%)",
+                pool, maxSize, open, active, idle, borrows, avgWaitMicros, maxWaitMicros, timeouts, leaksDetected, discarded,
+                statementCacheHits, statementCacheMisses, statementCacheEvictions, statementCacheHitRate() * 100);
+    }
+}
@@ -1,35 +1,16 @@
 package org.example.db;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
-import java.util.stream.Collectors;
 
 public class SchemaInitializer {
 
     public static void init() {
-        try (Connection conn = Database.getConnection();
-             Statement stmt = conn.createStatement()) {
+        try (Connection conn = Database.getConnection()) {
 
-            InputStream in = SchemaInitializer.class.getClassLoader().getResourceAsStream("schema.sql");
-            if (in == null) {
-                throw new RuntimeException("schema.sql not found in resources");
-            }
-
-            String sql = new BufferedReader(new InputStreamReader(in))
-                    .lines()
-                    .collect(Collectors.joining("\n"));
-
-            // Split by ; and run each statement
-            for (String s : sql.split(";")) {
-                String trimmed = s.trim();
-                if (!trimmed.isEmpty()) {
-                    stmt.execute(trimmed + ";");
-                }
-            }
+            // Bring the schema up to date (only migrations not applied yet are run)
+            MigrationRunner.migrate(conn);
 
             // ✅ seed after tables exist (and while conn is still open)
             seedCategories(conn);
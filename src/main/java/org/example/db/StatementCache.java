@@ -0,0 +1,169 @@
+package org.example.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Prepared statements of ONE physical connection, keyed by SQL text, with LRU eviction.
+// A borrowed statement is taken out of the cache and put back when the caller closes it,
+// so SQLite parses and plans each distinct query once per connection instead of once per call.
+// Not thread-safe on purpose: a physical connection is only ever leased to one thread.
+final class StatementCache {
+
+    // Counters shared by every cache of a pool
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {}
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Counters counters;
+    private final LinkedHashMap<Key, PreparedStatement> idle;
+    private final List<Handle> checkedOut = new ArrayList<>();
+
+    StatementCache(Connection physical, int maxSize, Counters counters) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.counters = counters;
+        this.idle = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) return false;
+                counters.evictions.increment();
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement ps = idle.remove(key);
+        if (ps != null && !ps.isClosed()) {
+            counters.hits.increment();
+        } else {
+            counters.misses.increment();
+            ps = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+                    ? physical.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : physical.prepareStatement(sql);
+        }
+
+        Handle handle = new Handle(owner, key, ps);
+        checkedOut.add(handle);
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, handle);
+    }
+
+    // Called when the lease ends: statements the caller forgot to close go back to the cache
+    void releaseAll() {
+        for (int i = checkedOut.size() - 1; i >= 0; i--) {
+            checkedOut.get(i).giveBack();
+        }
+        checkedOut.clear();
+    }
+
+    void closeAll() {
+        releaseAll();
+        for (Iterator<PreparedStatement> it = idle.values().iterator(); it.hasNext(); ) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+    }
+
+    int size() {
+        return idle.size();
+    }
+
+    private static void closeQuietly(Statement st) {
+        try {
+            st.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    // Logical statement handed to the caller. close() resets the real statement and returns it.
+    private final class Handle implements InvocationHandler {
+        private final Connection owner;
+        private final Key key;
+        private final PreparedStatement ps;
+        private final List<ResultSet> openResults = new ArrayList<>(1);
+        private boolean returned = false;
+
+        private Handle(Connection owner, Key key, PreparedStatement ps) {
+            this.owner = owner;
+            this.key = key;
+            this.ps = ps;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        giveBack();
+                        checkedOut.remove(this);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || ps.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached[" + key.sql() + "]";
+                }
+            }
+            if (returned) throw new SQLException("Statement is closed");
+
+            Object result;
+            try {
+                result = method.invoke(ps, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            // Remember cursors so an unclosed ResultSet can't keep a read transaction open
+            if (result instanceof ResultSet rs) openResults.add(rs);
+            return result;
+        }
+
+        private void giveBack() {
+            returned = true;
+            try {
+                for (ResultSet rs : openResults) rs.close();
+                openResults.clear();
+                ps.clearParameters();
+                ps.clearBatch();
+            } catch (SQLException e) {
+                closeQuietly(ps);
+                return;
+            }
+            PreparedStatement previous = idle.put(key, ps);
+            // Same SQL was prepared twice at once on this connection: keep only one copy
+            if (previous != null && previous != ps) closeQuietly(previous);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.db;
+
+// How the SQLite file is journaled. Either way every write goes through a single serialized
+// writer connection and reads get their own read-only pool.
+public enum StorageMode {
+    // SQLite default: readers and the writer's commit block each other
+    ROLLBACK_JOURNAL,
+    // Write-ahead log: readers never block the writer
+    WAL
+}
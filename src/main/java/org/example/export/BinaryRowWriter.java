@@ -0,0 +1,102 @@
+package org.example.export;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Binary layout (big-endian):
+//   header: "MRCX" | version u8 | table name | column count varint | per column: name, type u8
+//   rows:   ROW u8, then per column a tag u8 (NULL / VALUE) followed by the value:
+//           INTEGER zig-zag varint, REAL 8-byte IEEE 754, TEXT varint length + UTF-8 bytes
+//   end:    END u8, then the row count as a varint (a truncated file has no END)
+// Names are written like TEXT values.
+final class BinaryRowWriter implements RowWriter {
+
+    static final byte[] MAGIC = {'M', 'R', 'C', 'X'};
+    static final int VERSION = 1;
+    static final int ROW = 1;
+    static final int END = 0;
+    static final int NULL = 0;
+    static final int VALUE = 1;
+
+    private final DataOutputStream out;
+    private long rows;
+    private boolean rowOpen;
+
+    BinaryRowWriter(OutputStream stream, String tableName, List<ExportTable.Column> columns) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeString(tableName);
+        writeVarint(columns.size());
+        for (ExportTable.Column column : columns) {
+            writeString(column.name());
+            out.writeByte(column.type().ordinal());
+        }
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        beginValue();
+        out.writeByte(NULL);
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        beginValue();
+        out.writeByte(VALUE);
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        beginValue();
+        out.writeByte(VALUE);
+        out.writeDouble(value);
+    }
+
+    @Override
+    public void writeText(String value) throws IOException {
+        beginValue();
+        out.writeByte(VALUE);
+        writeString(value);
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        rows++;
+        rowOpen = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.writeByte(END);
+        writeVarint(rows);
+        out.close();
+    }
+
+    private void beginValue() throws IOException {
+        if (!rowOpen) {
+            out.writeByte(ROW);
+            rowOpen = true;
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    // LEB128: 7 bits per byte, high bit set on every byte but the last
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
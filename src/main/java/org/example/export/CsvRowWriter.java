@@ -0,0 +1,77 @@
+package org.example.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+final class CsvRowWriter implements RowWriter {
+
+    private final BufferedWriter out;
+    private boolean firstInRow = true;
+
+    CsvRowWriter(OutputStream stream, List<ExportTable.Column> columns) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 1 << 16);
+        for (ExportTable.Column column : columns) writeText(column.name());
+        endRow();
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        separator(); // empty field
+    }
+
+    @Override
+    public void writeLong(long value) throws IOException {
+        separator();
+        out.write(Long.toString(value));
+    }
+
+    @Override
+    public void writeDouble(double value) throws IOException {
+        separator();
+        out.write(Double.toString(value));
+    }
+
+    @Override
+    public void writeText(String value) throws IOException {
+        separator();
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"'); // "" inside a quoted field
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        out.write("\r\n");
+        firstInRow = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void separator() throws IOException {
+        if (!firstInRow) out.write(',');
+        firstInRow = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public enum ExportFormat {
+
+    // RFC 4180 CSV with a header line, UTF-8
+    CSV("csv"),
+    // Compact binary (see BinaryRowWriter): varint integers, no text conversion of numbers
+    BINARY("bin");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    RowWriter open(OutputStream out, String tableName, List<ExportTable.Column> columns) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvRowWriter(out, columns);
+            case BINARY -> new BinaryRowWriter(out, tableName, columns);
+        };
+    }
+}
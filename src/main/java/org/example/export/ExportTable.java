@@ -0,0 +1,47 @@
+package org.example.export;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// The tables the accounting extract covers, with their exported columns.
+// Every one has an ever-increasing INTEGER id: exports walk it in order, and the last id
+// written is the checkpoint the next incremental export starts from.
+public enum ExportTable {
+
+    INVOICES("invoices", List.of(
+            Column.integer("id"), Column.integer("cashier_id"), Column.integer("customer_id"),
+            Column.integer("shift_id"), Column.real("total_amount"), Column.text("created_at"))),
+
+    INVOICE_ITEMS("invoice_items", List.of(
+            Column.integer("id"), Column.integer("invoice_id"), Column.integer("product_id"),
+            Column.integer("quantity"), Column.real("unit_price"))),
+
+    STOCK_MOVEMENTS("stock_movements", List.of(
+            Column.integer("id"), Column.integer("product_id"), Column.integer("user_id"),
+            Column.text("movement_type"), Column.integer("quantity"), Column.text("reference"),
+            Column.text("created_at")));
+
+    public enum Type { INTEGER, REAL, TEXT }
+
+    public record Column(String name, Type type) {
+        static Column integer(String name) { return new Column(name, Type.INTEGER); }
+        static Column real(String name) { return new Column(name, Type.REAL); }
+        static Column text(String name) { return new Column(name, Type.TEXT); }
+    }
+
+    private final String tableName;
+    private final List<Column> columns;
+    private final String selectSql;
+
+    ExportTable(String tableName, List<Column> columns) {
+        this.tableName = tableName;
+        this.columns = columns;
+        // id is the rowid: "id > ? ORDER BY id" is a range scan of the table itself, no sort
+        this.selectSql = "SELECT " + columns.stream().map(Column::name).collect(Collectors.joining(", "))
+                + " FROM " + tableName + " WHERE id > ? ORDER BY id";
+    }
+
+    public String tableName() { return tableName; }
+    public List<Column> columns() { return columns; }
+    String selectSql() { return selectSql; }
+}
@@ -0,0 +1,23 @@
+package org.example.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Writes one row at a time: a value per column, in order, then endRow().
+// Implementations write through a buffered stream and keep nothing but the current row.
+interface RowWriter extends Closeable {
+
+    void writeNull() throws IOException;
+
+    void writeLong(long value) throws IOException;
+
+    void writeDouble(double value) throws IOException;
+
+    void writeText(String value) throws IOException;
+
+    void endRow() throws IOException;
+
+    // Flushes, writes any trailer and closes the stream
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,42 @@
+package org.example.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// Starts a flight recording with the bundled jfr/marchi.jfc profile when the app is run with
+// -Dmarchi.jfr=<file.jfr>; the recording is written to that file when the JVM exits.
+// (Equivalent to -XX:StartFlightRecording:settings=<path to marchi.jfc>, without needing the
+// .jfc on disk.)
+public class FlightRecording {
+
+    private static final String PROFILE = "jfr/marchi.jfc";
+
+    public static void startIfRequested() {
+        String file = System.getProperty("marchi.jfr");
+        if (file == null || file.isBlank()) return;
+
+        try (InputStream in = FlightRecording.class.getClassLoader().getResourceAsStream(PROFILE)) {
+            if (in == null) throw new IllegalStateException(PROFILE + " not found in resources");
+            Configuration config;
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                config = Configuration.create(reader);
+            }
+
+            Recording recording = new Recording(config);
+            recording.setName("marchi");
+            recording.setDestination(Path.of(file));
+            recording.setDumpOnExit(true);
+            recording.setToDisk(true);
+            recording.start();
+            System.out.println("🎥 Flight recording to " + file);
+        } catch (Exception e) {
+            System.out.println("❌ Failed to start flight recording: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One batch of GroupCommitWriter: its sales don't go through createInvoice, so they
+// show up here (one transaction, one commit for the whole batch) instead of as InvoiceEvents
+@Name("org.example.GroupCommit")
+@Label("Group Commit Batch")
+@Category({"Marchi", "Checkout"})
+@Description("Several checkouts applied and committed in one transaction")
+@StackTrace(false)
+public class GroupCommitEvent extends jdk.jfr.Event {
+
+    @Label("Batch Size")
+    public int batchSize;
+
+    @Label("Committed")
+    public int committed;
+
+    @Label("Rejected")
+    public int rejected;
+
+    @Label("Connection Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    public long connectionWait;
+
+    @Label("SQL Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sqlTime;
+
+    @Label("Commit Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long commitTime;
+
+    @Label("Success")
+    public boolean success;
+}
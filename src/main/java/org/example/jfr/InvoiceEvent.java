@@ -0,0 +1,63 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One checkout through InvoiceService.createInvoice. The event's duration is the whole call;
+// the timespans split it into waiting for the product locks, waiting for the writer
+// connection, running the SQL and committing.
+@Name("org.example.Invoice")
+@Label("Invoice Created")
+@Category({"Marchi", "Checkout"})
+@Description("A checkout, with where its time went")
+@StackTrace(false)
+public class InvoiceEvent extends jdk.jfr.Event {
+
+    @Label("Cashier Id")
+    public int cashierId;
+
+    @Label("Shift Id")
+    public int shiftId;
+
+    @Label("Invoice Id")
+    @Description("0 if the sale was refused")
+    public int invoiceId;
+
+    @Label("Lines")
+    public int lineCount;
+
+    @Label("Items")
+    public int itemCount;
+
+    @Label("Total")
+    public double total;
+
+    @Label("Lock Wait")
+    @Description("Waiting for the striped product locks of the basket")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lockWait;
+
+    @Label("Connection Wait")
+    @Description("Waiting for the writer connection (other lanes' transactions)")
+    @Timespan(Timespan.NANOSECONDS)
+    public long connectionWait;
+
+    @Label("SQL Time")
+    @Description("Loading, checking and writing the sale, up to the commit")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sqlTime;
+
+    @Label("Commit Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long commitTime;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Failure")
+    public String failure;
+}
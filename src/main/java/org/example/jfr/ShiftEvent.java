@@ -0,0 +1,40 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A cash register shift being opened or closed
+@Name("org.example.Shift")
+@Label("Shift")
+@Category({"Marchi", "Checkout"})
+@Description("A shift opened or closed in CashRegisterService")
+@StackTrace(false)
+public class ShiftEvent extends jdk.jfr.Event {
+
+    @Label("Action")
+    @Description("OPEN or CLOSE")
+    public String action;
+
+    @Label("Shift Id")
+    public int shiftId;
+
+    @Label("Cashier Id")
+    public int cashierId;
+
+    @Label("Opening Balance")
+    public double openingBalance;
+
+    @Label("Sales Total")
+    @Description("Set on CLOSE")
+    public double salesTotal;
+
+    @Label("Invoices")
+    @Description("Set on CLOSE")
+    public int invoiceCount;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,45 @@
+package org.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One stock IN / OUT through StockManagerService
+@Name("org.example.StockMovement")
+@Label("Stock Movement")
+@Category({"Marchi", "Stock"})
+@Description("A stock IN or OUT transaction")
+@StackTrace(false)
+public class StockMovementEvent extends jdk.jfr.Event {
+
+    @Label("Product Id")
+    public int productId;
+
+    @Label("User Id")
+    public int userId;
+
+    @Label("Type")
+    @Description("IN or OUT")
+    public String movementType;
+
+    @Label("Quantity")
+    public int quantity;
+
+    @Label("Lock Wait")
+    @Description("Waiting for the product lock (OUT only)")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lockWait;
+
+    @Label("Commit Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long commitTime;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Failure")
+    public String failure;
+}
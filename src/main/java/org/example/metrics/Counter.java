@@ -0,0 +1,29 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic count (striped, so concurrent increments don't contend on one cache line)
+public final class Counter {
+
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public void increment() {
+        if (Metrics.enabled) value.increment();
+    }
+
+    public void add(long n) {
+        if (Metrics.enabled) value.add(n);
+    }
+
+    public String name() { return name; }
+    public long count() { return value.sum(); }
+
+    void reset() {
+        value.reset();
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.metrics;
+
+// Distribution of a plain value (basket lines, batch size...), same buckets as LatencyHistogram
+public final class Distribution {
+
+    private final String name;
+    private final LatencyHistogram values = new LatencyHistogram();
+
+    Distribution(String name) {
+        this.name = name;
+    }
+
+    public void record(long value) {
+        if (Metrics.enabled) values.record(value);
+    }
+
+    public String name() { return name; }
+    public long count() { return values.count(); }
+    public LatencyHistogram values() { return values; }
+
+    void reset() {
+        values.reset();
+    }
+}
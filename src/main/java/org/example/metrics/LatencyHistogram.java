@@ -0,0 +1,97 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram with HDR-style log-linear buckets, in microseconds.
+// Values below 128 µs get one bucket each; above that every power of two is split into
+// 64 equal buckets, so any recorded value is reported within 1/64 (~1.6%) of itself, from
+// 1 µs up to ~12 days, in a fixed ~2,300 counters. Recording is lock-free and allocation-free,
+// so many threads can record into one histogram while it is being read.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;                          // 128 linear sub-buckets
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final long MAX_VALUE = (1L << 40) - 1;                   // ~12.7 days in µs
+    private static final int BUCKET_COUNT = 64 - Long.numberOfLeadingZeros(MAX_VALUE) - SUB_BUCKET_BITS + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray((BUCKET_COUNT + 1) * SUB_BUCKET_HALF);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1_000);
+    }
+
+    public void record(long micros) {
+        long v = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double meanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    public long maxMicros() {
+        return max.get();
+    }
+
+    // Value at this percentile (0-100), in µs: the upper bound of the bucket it falls in
+    public long percentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(highestEquivalent(i), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    // e.g. "n=1200 mean=3.1ms p50=2.4ms p95=7.9ms p99=15.2ms max=40.1ms"
+    public String summary() {
+        return String.format("n=%d mean=%s p50=%s p95=%s p99=%s max=%s",
+                count(), format((long) meanMicros()), format(percentile(50)),
+                format(percentile(95)), format(percentile(99)), format(maxMicros()));
+    }
+
+    public static String format(long micros) {
+        if (micros < 1_000) return micros + "µs";
+        if (micros < 1_000_000) return String.format("%.1fms", micros / 1_000.0);
+        return String.format("%.2fs", micros / 1_000_000.0);
+    }
+
+    // ---- bucket arithmetic ----
+
+    // Bucket b covers [2^(b+6), 2^(b+7)) with a step of 2^b; bucket 0 also covers [0, 64)
+    private static int indexOf(long v) {
+        int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(v) - SUB_BUCKET_BITS);
+        int sub = (int) (v >>> bucket);
+        return bucket * SUB_BUCKET_HALF + sub;
+    }
+
+    private static long highestEquivalent(int index) {
+        int bucket = Math.max(0, index / SUB_BUCKET_HALF - 1);
+        long sub = index - (long) bucket * SUB_BUCKET_HALF;
+        return ((sub + 1) << bucket) - 1;
+    }
+}
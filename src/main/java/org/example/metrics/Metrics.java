@@ -0,0 +1,75 @@
+package org.example.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-process registry of counters, timers and distributions, shared by every service.
+// Services look their metrics up once (static final fields) and update them lock-free on the
+// hot path. Turned off (-Dmarchi.metrics=false or setEnabled(false)), an update is one
+// volatile read and a branch: no clock read, no write.
+public final class Metrics {
+
+    static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("marchi.metrics"));
+
+    private static final ConcurrentHashMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Distribution> DISTRIBUTIONS = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    public static Distribution distribution(String name) {
+        return DISTRIBUTIONS.computeIfAbsent(name, Distribution::new);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    // Zeroes everything (the metrics stay registered)
+    public static void reset() {
+        COUNTERS.values().forEach(Counter::reset);
+        TIMERS.values().forEach(Timer::reset);
+        DISTRIBUTIONS.values().forEach(Distribution::reset);
+    }
+
+    // Point-in-time copy of every metric, sorted by name
+    public static MetricsSnapshot snapshot() {
+        List<MetricsSnapshot.CounterValue> counters = new ArrayList<>();
+        for (Counter c : COUNTERS.values()) {
+            counters.add(new MetricsSnapshot.CounterValue(c.name(), c.count()));
+        }
+
+        List<MetricsSnapshot.TimerValue> timers = new ArrayList<>();
+        for (Timer t : TIMERS.values()) {
+            LatencyHistogram h = t.latency();
+            timers.add(new MetricsSnapshot.TimerValue(t.name(), h.count(), t.errors(), h.meanMicros(),
+                    h.percentile(50), h.percentile(95), h.percentile(99), h.maxMicros()));
+        }
+
+        List<MetricsSnapshot.DistributionValue> distributions = new ArrayList<>();
+        for (Distribution d : DISTRIBUTIONS.values()) {
+            LatencyHistogram h = d.values();
+            distributions.add(new MetricsSnapshot.DistributionValue(d.name(), h.count(), h.meanMicros(),
+                    h.percentile(50), h.percentile(95), h.percentile(99), h.maxMicros()));
+        }
+
+        counters.sort(Comparator.comparing(MetricsSnapshot.CounterValue::name));
+        timers.sort(Comparator.comparing(MetricsSnapshot.TimerValue::name));
+        distributions.sort(Comparator.comparing(MetricsSnapshot.DistributionValue::name));
+        return new MetricsSnapshot(System.currentTimeMillis(), enabled, counters, timers, distributions);
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.metrics;
+
+import java.util.List;
+
+// What Metrics.snapshot() returns: plain values, safe to keep, compare or print.
+// Times are in microseconds.
+public record MetricsSnapshot(long takenAtMillis, boolean enabled, List<CounterValue> counters,
+                              List<TimerValue> timers, List<DistributionValue> distributions) {
+
+    public record CounterValue(String name, long count) {}
+
+    public record TimerValue(String name, long count, long errors, double meanMicros,
+                             long p50Micros, long p95Micros, long p99Micros, long maxMicros) {
+        public double errorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+    }
+
+    public record DistributionValue(String name, long count, double mean, long p50, long p95, long p99, long max) {}
+
+    public TimerValue timer(String name) {
+        for (TimerValue t : timers) if (t.name().equals(name)) return t;
+        return null;
+    }
+
+    public long counter(String name) {
+        for (CounterValue c : counters) if (c.name().equals(name)) return c.count();
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (!enabled) sb.append("(metrics are OFF: values are frozen)\n");
+
+        sb.append(String.format("%-28s %9s %7s %9s %9s %9s %9s %9s%n",
+                "OPERATION", "COUNT", "ERR%", "MEAN", "P50", "P95", "P99", "MAX"));
+        for (TimerValue t : timers) {
+            sb.append(String.format("%-28s %9d %6.1f%% %9s %9s %9s %9s %9s%n",
+                    t.name(), t.count(), t.errorRate() * 100,
+                    LatencyHistogram.format((long) t.meanMicros()), LatencyHistogram.format(t.p50Micros()),
+                    LatencyHistogram.format(t.p95Micros()), LatencyHistogram.format(t.p99Micros()),
+                    LatencyHistogram.format(t.maxMicros())));
+        }
+
+        if (!distributions.isEmpty()) {
+            sb.append(String.format("%n%-28s %9s %9s %9s %9s %9s %9s%n",
+                    "DISTRIBUTION", "COUNT", "MEAN", "P50", "P95", "P99", "MAX"));
+            for (DistributionValue d : distributions) {
+                sb.append(String.format("%-28s %9d %9.1f %9d %9d %9d %9d%n",
+                        d.name(), d.count(), d.mean(), d.p50(), d.p95(), d.p99(), d.max()));
+            }
+        }
+
+        if (!counters.isEmpty()) {
+            sb.append(String.format("%n%-28s %9s%n", "COUNTER", "VALUE"));
+            for (CounterValue c : counters) {
+                sb.append(String.format("%-28s %9d%n", c.name(), c.count()));
+            }
+        }
+        return sb.toString();
+    }
+}
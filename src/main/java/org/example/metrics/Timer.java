@@ -0,0 +1,38 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency and outcome of one operation.
+//   long t = TIMER.start();
+//   ... TIMER.stop(t, ok);
+// When metrics are off, start() returns 0 without reading the clock and stop(0, ...) does nothing.
+public final class Timer {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    Timer(String name) {
+        this.name = name;
+    }
+
+    public long start() {
+        return Metrics.enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stop(long start, boolean success) {
+        if (start == 0L) return; // started while metrics were off
+        latency.recordNanos(System.nanoTime() - start);
+        if (!success) errors.increment();
+    }
+
+    public String name() { return name; }
+    public long count() { return latency.count(); }
+    public long errors() { return errors.sum(); }
+    public LatencyHistogram latency() { return latency; }
+
+    void reset() {
+        latency.reset();
+        errors.reset();
+    }
+}
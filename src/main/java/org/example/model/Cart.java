@@ -0,0 +1,209 @@
+package org.example.model;
+
+import java.util.Arrays;
+
+// A shopping basket: product id -> quantity, without boxing.
+// Lines are kept in insertion order in dense parallel arrays; an open-addressing
+// hash table (linear probing) maps a product id to its position in those arrays.
+// clear() keeps the arrays, so one Cart per lane can be reused for every sale
+// without allocating per item.
+// A line can also carry the unit price captured when it was scanned (see PricingSession);
+// the subtotal of the priced lines is kept up to date on every change, in O(1).
+// Not thread-safe: a cart belongs to one lane at a time.
+public class Cart {
+
+    private static final int EMPTY = 0; // index slots hold position + 1
+
+    private int[] productIds;
+    private int[] quantities;
+    private double[] unitPrices; // NaN = no captured price
+    private int size = 0;
+    private int totalQuantity = 0;
+    private double subtotal = 0;
+
+    private int[] index; // length is a power of two, load factor <= 0.5
+    private int mask;
+
+    public Cart() {
+        this(8);
+    }
+
+    public Cart(int expectedLines) {
+        int capacity = Math.max(4, expectedLines);
+        productIds = new int[capacity];
+        quantities = new int[capacity];
+        unitPrices = new double[capacity];
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        index = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    // Adds qty to the line of this product (creates the line if needed)
+    public void add(int productId, int qty) {
+        add(productId, qty, Double.NaN);
+    }
+
+    // Same, capturing the unit price if the line doesn't have one yet
+    public void add(int productId, int qty, double unitPrice) {
+        int slot = findSlot(productId);
+        int pos = index[slot] - 1;
+        if (pos >= 0) {
+            quantities[pos] += qty;
+            if (Double.isNaN(unitPrices[pos]) && !Double.isNaN(unitPrice)) {
+                setUnitPriceAt(pos, unitPrice);
+            } else if (!Double.isNaN(unitPrices[pos])) {
+                subtotal += unitPrices[pos] * qty;
+            }
+        } else {
+            pos = append(productId, qty, unitPrice);
+            index[findSlot(productId)] = pos + 1;
+            if (!Double.isNaN(unitPrice)) subtotal += unitPrice * qty;
+        }
+        totalQuantity += qty;
+    }
+
+    // Replaces the captured unit price of an existing line (e.g. after a price change)
+    public void capturePrice(int productId, double unitPrice) {
+        int pos = index[findSlot(productId)] - 1;
+        if (pos >= 0) setUnitPriceAt(pos, unitPrice);
+    }
+
+    // Sets the line's quantity; a quantity <= 0 removes the line
+    public void set(int productId, int qty) {
+        if (qty <= 0) {
+            remove(productId);
+            return;
+        }
+        int pos = index[findSlot(productId)] - 1;
+        if (pos >= 0) {
+            int delta = qty - quantities[pos];
+            totalQuantity += delta;
+            if (!Double.isNaN(unitPrices[pos])) subtotal += unitPrices[pos] * delta;
+            quantities[pos] = qty;
+        } else {
+            add(productId, qty);
+        }
+    }
+
+    // Removes the line; returns false if the product wasn't in the cart.
+    // O(lines): later lines shift down to keep insertion order, which is fine for a basket.
+    public boolean remove(int productId) {
+        int pos = index[findSlot(productId)] - 1;
+        if (pos < 0) return false;
+
+        totalQuantity -= quantities[pos];
+        if (!Double.isNaN(unitPrices[pos])) subtotal -= unitPrices[pos] * quantities[pos];
+        int tail = size - pos - 1;
+        System.arraycopy(productIds, pos + 1, productIds, pos, tail);
+        System.arraycopy(quantities, pos + 1, quantities, pos, tail);
+        System.arraycopy(unitPrices, pos + 1, unitPrices, pos, tail);
+        size--;
+        if (size == 0) subtotal = 0; // don't let rounding residue survive an empty cart
+        rebuildIndex();
+        return true;
+    }
+
+    public int quantityOf(int productId) {
+        int pos = index[findSlot(productId)] - 1;
+        return pos < 0 ? 0 : quantities[pos];
+    }
+
+    public boolean contains(int productId) {
+        return index[findSlot(productId)] != EMPTY;
+    }
+
+    // ---- positional access (insertion order), allocation-free iteration ----
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int totalQuantity() { return totalQuantity; }
+    public int productIdAt(int i) { return productIds[i]; }
+    public int quantityAt(int i) { return quantities[i]; }
+    // Price captured when the line was scanned, or NaN
+    public double unitPriceAt(int i) { return unitPrices[i]; }
+    // Sum of quantity * captured price over the priced lines
+    public double subtotal() { return subtotal; }
+
+    // Position of the product's line, or -1
+    public int indexOf(int productId) {
+        return index[findSlot(productId)] - 1;
+    }
+
+    // Copy of the product ids, in insertion order
+    public int[] productIds() {
+        return Arrays.copyOf(productIds, size);
+    }
+
+    // Empties the cart but keeps its capacity, ready for the next customer
+    public void clear() {
+        Arrays.fill(index, EMPTY);
+        size = 0;
+        totalQuantity = 0;
+        subtotal = 0;
+    }
+
+    public Cart copy() {
+        Cart c = new Cart(Math.max(4, size));
+        for (int i = 0; i < size; i++) c.add(productIds[i], quantities[i], unitPrices[i]);
+        return c;
+    }
+
+    // ---- internals ----
+
+    private int findSlot(int productId) {
+        int slot = mix(productId) & mask;
+        while (true) {
+            int entry = index[slot];
+            if (entry == EMPTY || productIds[entry - 1] == productId) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int append(int productId, int qty, double unitPrice) {
+        if (size == productIds.length) grow();
+        productIds[size] = productId;
+        quantities[size] = qty;
+        unitPrices[size] = unitPrice;
+        return size++;
+    }
+
+    private void setUnitPriceAt(int pos, double unitPrice) {
+        if (!Double.isNaN(unitPrices[pos])) subtotal -= unitPrices[pos] * quantities[pos];
+        unitPrices[pos] = unitPrice;
+        if (!Double.isNaN(unitPrice)) subtotal += unitPrice * quantities[pos];
+    }
+
+    private void grow() {
+        int capacity = productIds.length * 2;
+        productIds = Arrays.copyOf(productIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        unitPrices = Arrays.copyOf(unitPrices, capacity);
+        index = new int[capacity * 2];
+        mask = index.length - 1;
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        Arrays.fill(index, EMPTY);
+        for (int i = 0; i < size; i++) {
+            int slot = mix(productIds[i]) & mask;
+            while (index[slot] != EMPTY) slot = (slot + 1) & mask;
+            index[slot] = i + 1;
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Cart{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(productIds[i]).append('x').append(quantities[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
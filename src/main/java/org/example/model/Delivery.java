@@ -0,0 +1,44 @@
+package org.example.model;
+
+import java.util.Arrays;
+
+// A goods-receiving document: the lines of one delivery (product id + quantity received),
+// tagged with the delivery's reference (delivery note number...).
+// Lines are kept as entered, in order, so a rejected line can be reported by its number.
+public class Delivery {
+
+    private final String reference;
+    private int[] productIds;
+    private int[] quantities;
+    private int size = 0;
+
+    public Delivery(String reference) {
+        this(reference, 16);
+    }
+
+    public Delivery(String reference, int expectedLines) {
+        if (reference == null || reference.isBlank()) throw new IllegalArgumentException("reference is required");
+        this.reference = reference.trim();
+        int capacity = Math.max(4, expectedLines);
+        productIds = new int[capacity];
+        quantities = new int[capacity];
+    }
+
+    public Delivery add(int productId, int qty) {
+        if (size == productIds.length) {
+            productIds = Arrays.copyOf(productIds, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        productIds[size] = productId;
+        quantities[size] = qty;
+        size++;
+        return this;
+    }
+
+    public String reference() { return reference; }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    // Line i (0-based) of the document
+    public int productIdAt(int i) { return productIds[i]; }
+    public int quantityAt(int i) { return quantities[i]; }
+}
@@ -0,0 +1,43 @@
+package org.example.model;
+
+public class Product {
+    private final int id;
+    private final String name;
+    private final String barcode;
+    private final int categoryId;
+    private final int supplierId;
+    private final double purchasePrice;
+    private final double sellingPrice;
+    private final int stockQuantity;
+
+    public Product(int id, String name, String barcode, int categoryId, int supplierId,
+                   double purchasePrice, double sellingPrice, int stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.barcode = barcode;
+        this.categoryId = categoryId;
+        this.supplierId = supplierId;
+        this.purchasePrice = purchasePrice;
+        this.sellingPrice = sellingPrice;
+        this.stockQuantity = stockQuantity;
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getBarcode() { return barcode; }
+    public int getCategoryId() { return categoryId; }
+    public int getSupplierId() { return supplierId; }
+    public double getPurchasePrice() { return purchasePrice; }
+    public double getSellingPrice() { return sellingPrice; }
+    public int getStockQuantity() { return stockQuantity; }
+
+    // Same product, another stock level (rows are immutable, shared by every lane)
+    public Product withStockQuantity(int stockQuantity) {
+        return new Product(id, name, barcode, categoryId, supplierId, purchasePrice, sellingPrice, stockQuantity);
+    }
+
+    @Override
+    public String toString() {
+        return id + " - " + name + " | $" + sellingPrice + " | Stock: " + stockQuantity;
+    }
+}
@@ -1,6 +1,9 @@
 package org.example.service;
 
 import org.example.db.Database;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+import org.example.metrics.Timer;
 import org.example.model.User;
 
 import java.sql.Connection;
@@ -9,10 +12,27 @@ import java.sql.ResultSet;
 
 public class AuthService {
 
+    private static final Timer LOGIN = Metrics.timer("auth.login");
+    private static final Counter LOGIN_REJECTED = Metrics.counter("auth.login.rejected");
+
+    // null if the credentials don't match
     public User login(String username, String password) {
+        long t = LOGIN.start();
+        boolean ok = false;
+        try {
+            User user = findUser(username, password);
+            ok = true;
+            if (user == null) LOGIN_REJECTED.increment();
+            return user;
+        } finally {
+            LOGIN.stop(t, ok);
+        }
+    }
+
+    private User findUser(String username, String password) {
         String sql = "SELECT id, username, role FROM users WHERE username = ? AND password = ?";
 
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, username);
@@ -0,0 +1,192 @@
+package org.example.service;
+
+import org.example.db.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Barcode -> product id, for every product, held in memory.
+// Numeric codes (EAN-13, UPC-A, GTIN-14...: up to 17 digits) are packed into a long and kept in
+// an open-addressing table of primitives, so a scan allocates nothing and boxes nothing. Anything
+// else (letters, longer codes) goes to a plain HashMap.
+// The index is loaded in full, so it doubles as an exact negative cache: a code that isn't in it
+// doesn't exist, and scanning it never reaches SQLite. Rows added by this JVM are put() after
+// their commit; rows added by another process need reload().
+public class BarcodeIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final long EMPTY = 0; // a packed key always has a non-zero length part
+    private static final int MAX_DIGITS = 17; // 10^17 << 5 still fits in a long
+
+    private static final BarcodeIndex SHARED = new BarcodeIndex();
+
+    // Guarded by lock
+    private long[] keys = new long[1024];
+    private int[] ids = new int[1024];
+    private int mask = keys.length - 1;
+    private int numericCount = 0;
+    private final Map<String, Integer> other = new HashMap<>();
+    private boolean loaded = false;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+
+    public static BarcodeIndex shared() {
+        return SHARED;
+    }
+
+    // Product id of this barcode, or NOT_FOUND (never queries the database once loaded)
+    public int find(String barcode) {
+        if (barcode == null) return NOT_FOUND;
+        String code = barcode.trim();
+        if (code.isEmpty()) return NOT_FOUND;
+        if (!isLoaded()) reload();
+
+        long key = pack(code);
+        int id;
+        lock.readLock().lock();
+        try {
+            if (key != EMPTY) {
+                int slot = findSlot(key);
+                id = keys[slot] == EMPTY ? NOT_FOUND : ids[slot];
+            } else {
+                Integer boxed = other.get(code);
+                id = boxed == null ? NOT_FOUND : boxed;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (id == NOT_FOUND) unknown.increment();
+        else hits.increment();
+        return id;
+    }
+
+    // A product row was committed with this barcode
+    public void put(String barcode, int productId) {
+        if (barcode == null || barcode.isBlank()) return;
+        lock.writeLock().lock();
+        try {
+            putLocked(barcode.trim(), productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // (Re)loads every barcode in one pass over products
+    public void reload() {
+        String sql = "SELECT id, barcode FROM products WHERE barcode IS NOT NULL AND barcode <> ''";
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(keys, EMPTY);
+            numericCount = 0;
+            other.clear();
+            loaded = false;
+
+            try (Connection conn = Database.getReadConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) putLocked(rs.getString(2).trim(), rs.getInt(1));
+                loaded = true;
+            } catch (SQLException e) {
+                System.out.println("❌ Failed to load barcodes: " + e.getMessage());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        lock.readLock().lock();
+        try {
+            size = numericCount + other.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Stats(size, hits.sum(), unknown.sum());
+    }
+
+    public record Stats(int size, long hits, long unknown) {
+        @Override
+        public String toString() {
+            return String.format("barcodes=%d scans=%d unknown=%d", size, hits + unknown, unknown);
+        }
+    }
+
+    // ---- internals ----
+
+    private boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putLocked(String code, int productId) {
+        long key = pack(code);
+        if (key == EMPTY) {
+            other.put(code, productId);
+            return;
+        }
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY) {
+            if ((numericCount + 1) * 2 > keys.length) {
+                grow();
+                slot = findSlot(key);
+            }
+            keys[slot] = key;
+            numericCount++;
+        }
+        ids[slot] = productId;
+    }
+
+    // Digits and their count packed into a long ("0123" and "123" stay different); EMPTY if not numeric
+    private static long pack(String code) {
+        int len = code.length();
+        if (len > MAX_DIGITS) return EMPTY;
+        long value = 0;
+        for (int i = 0; i < len; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') return EMPTY;
+            value = value * 10 + (c - '0');
+        }
+        return (value << 5) | len;
+    }
+
+    private int findSlot(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new long[oldKeys.length * 2];
+        ids = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = findSlot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            ids[slot] = oldIds[i];
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,22 +1,70 @@
 package org.example.service;
 
 import org.example.db.Database;
+import org.example.metrics.Metrics;
+import org.example.metrics.Timer;
+import org.example.model.Cart;
+import org.example.model.Product;
 import org.example.service.cashier.CashRegisterService;
+import org.example.service.cashier.GroupCommitWriter;
 import org.example.service.cashier.InvoiceService;
+import org.example.service.cashier.PricingSession;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class CashierService {
 
+    private static final Timer PROCESS_TRANSACTION = Metrics.timer("cashier.processTransaction");
+
     private final CashRegisterService cashRegisterService;
     private final InvoiceService invoiceService;
 
+    // null = every sale commits on its own (default)
+    private volatile GroupCommitWriter groupCommitWriter;
+
     public CashierService() {
         this.cashRegisterService = new CashRegisterService();
         this.invoiceService = new InvoiceService();
+
+        // -Dmarchi.checkout.groupCommit=true turns group commit on from the start
+        // (through the static factory: the constructor must not call overridable methods)
+        if (Boolean.getBoolean("marchi.checkout.groupCommit")) {
+            groupCommitWriter = newGroupCommitWriter(invoiceService,
+                    Integer.getInteger("marchi.checkout.groupCommit.maxBatch", 32),
+                    Long.getLong("marchi.checkout.groupCommit.maxWaitMs", 5));
+        }
+    }
+
+    // ==========================================
+    // ⚡ GROUP COMMIT (rush hour mode)
+    // ==========================================
+
+    // Sales are queued to one writer thread that commits up to maxBatch invoices per
+    // transaction, waiting at most maxWaitMillis for the batch to fill up
+    public synchronized void enableGroupCommit(int maxBatch, long maxWaitMillis) {
+        disableGroupCommit();
+        groupCommitWriter = newGroupCommitWriter(invoiceService, maxBatch, maxWaitMillis);
+    }
+
+    private static GroupCommitWriter newGroupCommitWriter(InvoiceService invoiceService, int maxBatch, long maxWaitMillis) {
+        return new GroupCommitWriter(invoiceService, maxBatch, maxWaitMillis, 4 * maxBatch);
+    }
+
+    public synchronized void disableGroupCommit() {
+        if (groupCommitWriter != null) {
+            groupCommitWriter.close(); // drains the queued sales first
+            groupCommitWriter = null;
+        }
+    }
+
+    // null when group commit is off
+    public GroupCommitWriter.Stats groupCommitStats() {
+        GroupCommitWriter writer = groupCommitWriter;
+        return writer == null ? null : writer.stats();
     }
 
     // ==========================================
@@ -30,23 +78,71 @@ public class CashierService {
         cashRegisterService.endShift(cashierId);
     }
 
+    public boolean hasActiveShift() {
+        return cashRegisterService.hasActiveShift();
+    }
+
+    // Mid-shift report, read from the shift's running totals
+    public void xReport() {
+        cashRegisterService.xReport();
+    }
+
     // ==========================================
     // 🛒 CLIENT INTERFACE HELPERS
     // ==========================================
 
+    // 0. Start a running bill for the next customer (prices captured once per product)
+    public PricingSession newPricingSession() {
+        return new PricingSession(ProductCatalog.shared());
+    }
+
+    // Product behind a scanned barcode, or null; unknown codes never reach the database
+    public Product lookupByBarcode(String barcode) {
+        return ProductCatalog.shared().findByBarcode(barcode);
+    }
+
     // 1. Get Cart Total (For UI Preview before paying)
-    public double getCartTotal(Map<Integer, Integer> cart) {
+    public double getCartTotal(Cart cart) {
         return invoiceService.calculateCartTotal(cart);
     }
 
     // 2. Process Transaction (Now accepts 'cashGiven' for change calculation)
-    public boolean processTransaction(int cashierId, Integer customerId, Map<Integer, Integer> cart, double cashGiven) {
+    public boolean processTransaction(int cashierId, Integer customerId, Cart cart, double cashGiven) {
+        return processTransaction(cashierId, customerId, cart, cashGiven, false);
+    }
+
+    // quiet: no receipt and no per-sale console output, e.g. for simulated sales, whose
+    // latency must measure checkout rather than the console
+    public boolean processTransaction(int cashierId, Integer customerId, Cart cart, double cashGiven, boolean quiet) {
+        long t = PROCESS_TRANSACTION.start();
+        boolean ok = false;
+        try {
+            ok = processTransactionAsync(cashierId, customerId, cart, cashGiven, quiet).join();
+            return ok;
+        } finally {
+            PROCESS_TRANSACTION.stop(t, ok); // also when join() throws
+        }
+    }
+
+    // Completes once the invoice is committed (true) or rejected (false).
+    // Without group commit the sale runs right away on the calling thread.
+    public CompletableFuture<Boolean> processTransactionAsync(int cashierId, Integer customerId, Cart cart, double cashGiven) {
+        return processTransactionAsync(cashierId, customerId, cart, cashGiven, false);
+    }
+
+    public CompletableFuture<Boolean> processTransactionAsync(int cashierId, Integer customerId, Cart cart, double cashGiven,
+                                                              boolean quiet) {
         // Rule: Can't sell if the register is closed
         if (!cashRegisterService.hasActiveShift()) {
             System.out.println("⚠️ You must START SHIFT before selling!");
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
-        return invoiceService.createInvoice(cashierId, customerId, cart, cashGiven);
+        int shiftId = cashRegisterService.getCurrentShiftId();
+        GroupCommitWriter writer = groupCommitWriter;
+        if (writer != null) {
+            return writer.submit(cashierId, shiftId, customerId, cart, cashGiven, quiet);
+        }
+        return CompletableFuture.completedFuture(invoiceService.createInvoice(cashierId, shiftId, customerId, cart, cashGiven, quiet));
     }
 
     // ==========================================
@@ -56,7 +152,7 @@ public class CashierService {
     // 3. List Categories (The "Aisles")
     public void listCategories() {
         String sql = "SELECT id, name FROM categories ORDER BY id";
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
@@ -71,32 +167,22 @@ public class CashierService {
 
     // 4. List Products by Category (The "Shelf")
     public boolean listProductsByCategory(int categoryId) {
-        String sql = "SELECT id, name, selling_price, stock_quantity FROM products WHERE category_id = ?";
-        boolean foundAny = false;
-
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, categoryId);
-            ResultSet rs = ps.executeQuery();
-
-            System.out.println("\n   --- 🥫 PRODUCTS ON SHELF ---");
-            System.out.printf("   %-5s %-20s %-10s %s\n", "ID", "Name", "Price", "Stock");
-            System.out.println("   ------------------------------------------------");
-
-            while (rs.next()) {
-                foundAny = true;
-                System.out.printf("   %-5d %-20s $%-9.2f %d left\n",
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getDouble("selling_price"),
-                        rs.getInt("stock_quantity"));
-            }
-            if (!foundAny) System.out.println("   (This aisle is empty!)");
-
-        } catch (Exception e) {
-            System.out.println("❌ Error listing products: " + e.getMessage());
+        // Served from the in-memory catalog: one query per aisle until its stock changes
+        List<Product> products = ProductCatalog.shared().productsInCategory(categoryId);
+
+        System.out.println("\n   --- 🥫 PRODUCTS ON SHELF ---");
+        System.out.printf("   %-5s %-20s %-10s %s\n", "ID", "Name", "Price", "Stock");
+        System.out.println("   ------------------------------------------------");
+
+        for (Product p : products) {
+            System.out.printf("   %-5d %-20s $%-9.2f %d left\n",
+                    p.getId(),
+                    p.getName(),
+                    p.getSellingPrice(),
+                    p.getStockQuantity());
         }
-        return foundAny;
+        if (products.isEmpty()) System.out.println("   (This aisle is empty!)");
+
+        return !products.isEmpty();
     }
 }
\ No newline at end of file
@@ -6,15 +6,38 @@ import org.example.model.Category;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
 
 public class CategoryService {
 
-    // Add new category using Thread (async operation)
+    // Shared by every CategoryService in the JVM; loaded on first use, kept current by addCategoryAsync
+    private static final SharedNgramIndex<Category> INDEX =
+            new SharedNgramIndex<>("categories", Category::getName, CategoryService::loadCategories);
+
+    // Run the *Async methods (blocking JDBC work): never the common ForkJoinPool.
+    // Writes have their own executor, capped at the single writer connection.
+    private final Executor executor;
+    private final Executor writeExecutor;
+
+    public CategoryService() {
+        this(ServiceExecutors.database(), ServiceExecutors.databaseWrites());
+    }
+
+    public CategoryService(Executor executor) {
+        this(executor, executor);
+    }
+
+    public CategoryService(Executor executor, Executor writeExecutor) {
+        this.executor = executor;
+        this.writeExecutor = writeExecutor;
+    }
+
+    // Add new category on the write executor (async operation)
     public CompletableFuture<Boolean> addCategoryAsync(String name) {
         return CompletableFuture.supplyAsync(() -> {
             if (name == null || name.trim().isEmpty()) {
@@ -24,7 +47,9 @@ public class CategoryService {
 
             String sql = "INSERT INTO categories(name) VALUES(?)";
 
-            try (Connection conn = Database.getConnection();
+            INDEX.beginWrite();
+            Category added = null;
+            try (Connection conn = Database.getWriteConnection();
                  PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
                 ps.setString(1, name.trim());
@@ -33,6 +58,7 @@ public class CategoryService {
                 try (ResultSet rs = ps.getGeneratedKeys()) {
                     if (rs.next()) {
                         int newId = rs.getInt(1);
+                        added = new Category(newId, name.trim());
                         System.out.println("✅ Category created successfully (ID: " + newId + ")");
                         return true;
                     }
@@ -45,9 +71,11 @@ public class CategoryService {
                     System.out.println("❌ Failed to create category: " + e.getMessage());
                 }
                 return false;
+            } finally {
+                INDEX.endWrite(added);
             }
             return false;
-        });
+        }, writeExecutor);
     }
 
     // Synchronous version for immediate use
@@ -62,10 +90,51 @@ public class CategoryService {
 
     // Get all categories using Stream and Filter
     public List<Category> getAllCategories() {
+        try {
+            return loadCategories();
+        } catch (Exception e) {
+            System.out.println("❌ Failed to load categories: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public CompletableFuture<List<Category>> getAllCategoriesAsync() {
+        return CompletableFuture.supplyAsync(this::getAllCategories, executor);
+    }
+
+    // Filter categories by name (substring, ignoring case) from the in-memory index
+    public List<Category> filterCategoriesByName(String searchTerm) {
+        NgramIndex<Category> idx = INDEX.get();
+        return idx != null ? idx.search(searchTerm) : new ArrayList<>();
+    }
+
+    // The first call may load the index from the database, hence the async variants
+    public CompletableFuture<List<Category>> filterCategoriesByNameAsync(String searchTerm) {
+        return CompletableFuture.supplyAsync(() -> filterCategoriesByName(searchTerm), executor);
+    }
+
+    // Check if category exists (case-insensitive) without going to the database
+    public boolean categoryExists(String name) {
+        NgramIndex<Category> idx = INDEX.get();
+        return idx != null && idx.containsName(name);
+    }
+
+    public CompletableFuture<Boolean> categoryExistsAsync(String name) {
+        return CompletableFuture.supplyAsync(() -> categoryExists(name), executor);
+    }
+
+    // Forget the index (e.g. categories were changed outside this JVM); the next query reloads it
+    public static void invalidateIndex() {
+        INDEX.invalidate();
+    }
+
+    // ---- internals ----
+
+    private static List<Category> loadCategories() throws SQLException {
         List<Category> categories = new ArrayList<>();
         String sql = "SELECT id, name FROM categories ORDER BY name";
 
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
@@ -75,25 +144,7 @@ public class CategoryService {
                         rs.getString("name")
                 ));
             }
-
-        } catch (Exception e) {
-            System.out.println("❌ Failed to load categories: " + e.getMessage());
         }
-
         return categories;
     }
-
-    // Filter categories by name pattern using Stream and Filter
-    public List<Category> filterCategoriesByName(String searchTerm) {
-        return getAllCategories().stream()
-                .filter(category ->
-                        category.getName().toLowerCase().contains(searchTerm.toLowerCase()))
-                .collect(Collectors.toList());
-    }
-
-    // Check if category exists using Stream
-    public boolean categoryExists(String name) {
-        return getAllCategories().stream()
-                .anyMatch(cat -> cat.getName().equalsIgnoreCase(name.trim()));
-    }
 }
\ No newline at end of file
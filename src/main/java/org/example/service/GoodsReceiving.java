@@ -0,0 +1,205 @@
+package org.example.service;
+
+import org.example.db.Database;
+import org.example.db.InClause;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+import org.example.metrics.Timer;
+import org.example.model.Delivery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Goods receiving: applies a whole delivery (hundreds of lines) in ONE write transaction,
+// instead of one stockIn() transaction per product.
+// Every line is checked first (quantity > 0, product exists); the accepted lines then go in
+// as one batched UPDATE of products.stock_quantity and one batched INSERT of 'IN' movements,
+// all tagged with the delivery's reference. Rejected lines are reported with their reason
+// and don't stop the rest of the delivery.
+public class GoodsReceiving {
+
+    // Ids checked per existence query (well under SQLite's bound-parameter limit)
+    private static final int LOOKUP_CHUNK = 512;
+
+    private static final Timer RECEIVE = Metrics.timer("stock.receive");
+    private static final Counter UNITS_IN = Metrics.counter("stock.units.in");
+
+    public record RejectedLine(int line, int productId, int quantity, String reason) {
+        @Override
+        public String toString() {
+            return "line " + line + " (product #" + productId + ", qty " + quantity + "): " + reason;
+        }
+    }
+
+    public record Report(String reference, int lines, int accepted, long units, long elapsedNanos,
+                         List<RejectedLine> rejectedLines) {
+        public int rejected() {
+            return rejectedLines.size();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("delivery %s: %d lines, %d accepted (%d units), %d rejected in %.1fms",
+                    reference, lines, accepted, units, rejected(), elapsedNanos / 1e6);
+        }
+    }
+
+    // Thrown (nothing written) when the delivery's reference was already received
+    public static class DuplicateDeliveryException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public DuplicateDeliveryException(String reference) {
+            super("Delivery " + reference + " was already received");
+        }
+    }
+
+    public Report receive(Delivery delivery, int userId) throws SQLException, DuplicateDeliveryException {
+        long t = RECEIVE.start();
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            Report report = apply(delivery, userId, start);
+            ok = true;
+            UNITS_IN.add(report.units());
+            return report;
+        } finally {
+            RECEIVE.stop(t, ok);
+        }
+    }
+
+    private Report apply(Delivery delivery, int userId, long start) throws SQLException, DuplicateDeliveryException {
+        int n = delivery.size();
+        List<RejectedLine> rejected = new ArrayList<>();
+        boolean[] valid = new boolean[n];
+
+        // A. Quantities
+        for (int i = 0; i < n; i++) {
+            int qty = delivery.quantityAt(i);
+            if (qty <= 0) rejected.add(new RejectedLine(i + 1, delivery.productIdAt(i), qty, "quantity must be > 0"));
+            else valid[i] = true;
+        }
+
+        String updateProduct = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+        String insertMovement = """
+            INSERT INTO stock_movements (product_id, user_id, movement_type, quantity, reference, created_at)
+            VALUES (?, ?, 'IN', ?, ?, CURRENT_TIMESTAMP)
+        """;
+
+        int[] touched = new int[n];
+        int touchedCount = 0;
+        int accepted = 0;
+        long units = 0;
+
+        Connection conn = null;
+        try {
+            conn = Database.getWriteConnection();
+            conn.setAutoCommit(false);
+
+            // B. The same delivery note can't be booked twice
+            if (alreadyReceived(conn, delivery.reference())) {
+                throw new DuplicateDeliveryException(delivery.reference());
+            }
+
+            // C. Unknown products (checked in the transaction: nothing can delete them meanwhile)
+            Set<Integer> existing = existingProducts(conn, delivery, valid);
+            for (int i = 0; i < n; i++) {
+                if (valid[i] && !existing.contains(delivery.productIdAt(i))) {
+                    valid[i] = false;
+                    rejected.add(new RejectedLine(i + 1, delivery.productIdAt(i), delivery.quantityAt(i), "product not found"));
+                }
+            }
+
+            // D + E. One batch of stock updates, one batch of movements
+            try (PreparedStatement ps1 = conn.prepareStatement(updateProduct);
+                 PreparedStatement ps2 = conn.prepareStatement(insertMovement)) {
+                for (int i = 0; i < n; i++) {
+                    if (!valid[i]) continue;
+                    int productId = delivery.productIdAt(i);
+                    int qty = delivery.quantityAt(i);
+
+                    ps1.setInt(1, qty);
+                    ps1.setInt(2, productId);
+                    ps1.addBatch();
+
+                    ps2.setInt(1, productId);
+                    ps2.setInt(2, userId);
+                    ps2.setInt(3, qty);
+                    ps2.setString(4, delivery.reference());
+                    ps2.addBatch();
+
+                    touched[touchedCount++] = productId;
+                    accepted++;
+                    units += qty;
+                }
+                if (accepted > 0) {
+                    ps1.executeBatch();
+                    ps2.executeBatch();
+                }
+            }
+
+            conn.commit();
+            ProductCatalog.shared().invalidate(touched, touchedCount);
+
+        } catch (SQLException | DuplicateDeliveryException | RuntimeException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (Exception ignored) {
+            }
+            throw e;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (Exception ignored) {
+            }
+        }
+
+        rejected.sort((a, b) -> Integer.compare(a.line(), b.line()));
+        return new Report(delivery.reference(), n, accepted, units, System.nanoTime() - start, rejected);
+    }
+
+    private boolean alreadyReceived(Connection conn, String reference) throws SQLException {
+        String sql = "SELECT 1 FROM stock_movements WHERE reference = ? AND movement_type = 'IN' LIMIT 1"; // sales use INV-<id>
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, reference);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // Ids of the still-valid lines' products that exist, looked up LOOKUP_CHUNK at a time
+    private Set<Integer> existingProducts(Connection conn, Delivery delivery, boolean[] valid) throws SQLException {
+        int[] ids = new int[delivery.size()];
+        int count = 0;
+        for (int i = 0; i < delivery.size(); i++) {
+            if (valid[i]) ids[count++] = delivery.productIdAt(i);
+        }
+        Arrays.sort(ids, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || ids[i] != ids[distinct - 1]) ids[distinct++] = ids[i];
+        }
+
+        Set<Integer> found = new HashSet<>(distinct * 2);
+        int[] chunk = new int[LOOKUP_CHUNK];
+        for (int from = 0; from < distinct; from += LOOKUP_CHUNK) {
+            int size = Math.min(LOOKUP_CHUNK, distinct - from);
+            System.arraycopy(ids, from, chunk, 0, size);
+            String sql = "SELECT id FROM products WHERE id IN (" + InClause.placeholders(size) + ")";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                InClause.bind(ps, 1, chunk, size);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) found.add(rs.getInt(1));
+                }
+            }
+        }
+        return found;
+    }
+}
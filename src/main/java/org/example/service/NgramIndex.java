@@ -0,0 +1,165 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// In-memory case-insensitive name index for small, rarely-changing entities (categories, suppliers).
+// Every 1-, 2- and 3-character gram of each lower-cased name points to the entries containing it,
+// so a substring query is answered from the postings of its grams (verified against the stored
+// lower-case name for queries longer than 3) without scanning every row or touching SQLite.
+// Names are lower-cased once, when added; a query lower-cases only the search term.
+public class NgramIndex<T> {
+
+    private static final int N = 3;
+
+    private final Function<T, String> nameOf;
+    private final Comparator<T> order;
+
+    // Guarded by lock
+    private final List<T> entries = new ArrayList<>();
+    private final List<String> lowerNames = new ArrayList<>();
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private final Map<String, List<T>> exact = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public NgramIndex(Function<T, String> nameOf) {
+        this.nameOf = nameOf;
+        this.order = Comparator.comparing(nameOf, String.CASE_INSENSITIVE_ORDER);
+    }
+
+    public void addAll(List<T> items) {
+        lock.writeLock().lock();
+        try {
+            for (T item : items) addLocked(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void add(T item) {
+        lock.writeLock().lock();
+        try {
+            addLocked(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Entries whose name contains the term (ignoring case), ordered by name
+    public List<T> search(String term) {
+        String q = term == null ? "" : term.toLowerCase(Locale.ROOT);
+
+        lock.readLock().lock();
+        try {
+            List<T> result = new ArrayList<>();
+            if (q.isEmpty()) {
+                result.addAll(entries);
+            } else if (q.length() <= N) {
+                // Every short gram is indexed, so its postings ARE the answer
+                Postings p = grams.get(key(q, 0, q.length()));
+                if (p != null) {
+                    for (int i = 0; i < p.size; i++) result.add(entries.get(p.ids[i]));
+                }
+            } else {
+                for (int pos : candidates(q)) {
+                    if (lowerNames.get(pos).contains(q)) result.add(entries.get(pos));
+                }
+            }
+            result.sort(order);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Case-insensitive exact name match (surrounding spaces ignored)
+    public boolean containsName(String name) {
+        if (name == null) return false;
+        lock.readLock().lock();
+        try {
+            return exact.containsKey(name.trim().toLowerCase(Locale.ROOT));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<T> all() {
+        return search("");
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- internals ----
+
+    private void addLocked(T item) {
+        int pos = entries.size();
+        String lower = nameOf.apply(item).toLowerCase(Locale.ROOT);
+        entries.add(item);
+        lowerNames.add(lower);
+        exact.computeIfAbsent(lower.trim(), k -> new ArrayList<>(1)).add(item);
+
+        for (int len = 1; len <= N; len++) {
+            for (int i = 0; i + len <= lower.length(); i++) {
+                grams.computeIfAbsent(key(lower, i, len), k -> new Postings()).add(pos);
+            }
+        }
+    }
+
+    // Intersection of the postings of every trigram of q (smallest list first)
+    private int[] candidates(String q) {
+        int count = q.length() - N + 1;
+        Postings[] lists = new Postings[count];
+        for (int i = 0; i < count; i++) {
+            lists[i] = grams.get(key(q, i, N));
+            if (lists[i] == null) return new int[0];
+        }
+        Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+
+        int[] acc = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int accSize = acc.length;
+        for (int l = 1; l < lists.length && accSize > 0; l++) {
+            Postings p = lists[l];
+            int a = 0, b = 0, out = 0;
+            while (a < accSize && b < p.size) {
+                if (acc[a] < p.ids[b]) a++;
+                else if (acc[a] > p.ids[b]) b++;
+                else { acc[out++] = acc[a]; a++; b++; }
+            }
+            accSize = out;
+        }
+        return Arrays.copyOf(acc, accSize);
+    }
+
+    // Up to 3 UTF-16 chars packed into a long: no substring allocation per lookup
+    private static long key(String s, int from, int len) {
+        long k = len;
+        for (int i = 0; i < len; i++) k = (k << 16) | s.charAt(from + i);
+        return k;
+    }
+
+    // Sorted, de-duplicated growable int list (positions are added in increasing order)
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size = 0;
+
+        void add(int pos) {
+            if (size > 0 && ids[size - 1] == pos) return; // gram appears twice in the same name
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = pos;
+        }
+    }
+}
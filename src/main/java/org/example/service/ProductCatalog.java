@@ -0,0 +1,282 @@
+package org.example.service;
+
+import org.example.db.Database;
+import org.example.db.InClause;
+import org.example.model.Product;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// In-memory cache of product rows, shared by every service in the JVM.
+// Lookups by id, barcode and category are served from memory; misses are loaded from
+// SQLite in one query and kept (LRU, bounded by maxEntries). Barcodes are resolved to an
+// id by BarcodeIndex, which knows every barcode, so an unknown code costs no query.
+// Whoever changes a product row must tell the catalog AFTER committing: checkout, which
+// knows the exact stock left, calls stockUpdated(...) to patch the cached rows in place;
+// anything else calls invalidate(...), so the next lookup reloads the fresh row.
+// Versions are kept per product (striped), so a change to one product never throws away a
+// concurrent load of the others.
+public class ProductCatalog {
+
+    private static final String COLUMNS =
+            "id, name, barcode, category_id, supplier_id, purchase_price, selling_price, stock_quantity";
+
+    private static final int VERSION_STRIPES = 1024; // power of two
+
+    private static final ProductCatalog SHARED =
+            new ProductCatalog(Integer.getInteger("marchi.catalog.maxEntries", 10_000));
+
+    private final int maxEntries;
+
+    // All guarded by 'this'
+    private final LinkedHashMap<Integer, Product> byId;
+    private final Map<Integer, int[]> idsByCategory = new HashMap<>();
+    // A load only caches a row if its product's stripe didn't change while it was reading
+    private final long[] versions = new long[VERSION_STRIPES];
+    // Bumped by invalidateCategory / invalidateAll: category listings loaded before are dropped
+    private long categoryEpoch = 0;
+    private long epoch = 0; // bumped by invalidateAll
+
+    private record Snapshot(long epoch, long categoryEpoch, long[] versions) {}
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ProductCatalog(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.byId = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Product> eldest) {
+                if (size() <= ProductCatalog.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public static ProductCatalog shared() {
+        return SHARED;
+    }
+
+    // Loads the catalog (up to maxEntries rows) in one pass, e.g. when a lane opens
+    public void warmUp() {
+        String sql = "SELECT " + COLUMNS + " FROM products ORDER BY id LIMIT ?";
+        Snapshot snap = snapshot();
+        List<Product> loaded = new ArrayList<>();
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, maxEntries);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) loaded.add(map(rs));
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ Failed to load product catalog: " + e.getMessage());
+            return;
+        }
+        cacheAll(loaded, snap);
+    }
+
+    // ---- lookups ----
+
+    public Product get(int productId) {
+        synchronized (this) {
+            Product p = byId.get(productId);
+            if (p != null) {
+                hits.increment();
+                return p;
+            }
+        }
+        misses.increment();
+        return load(new int[]{productId}, 1).get(productId);
+    }
+
+    // Every product of the cart in one go: hits from memory, all misses in ONE query
+    public Map<Integer, Product> getAll(int[] productIds, int count) {
+        Map<Integer, Product> result = new HashMap<>(count * 2);
+        int[] missing = new int[count];
+        int missingCount = 0;
+
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                Product p = byId.get(productIds[i]);
+                if (p != null) result.put(p.getId(), p);
+                else missing[missingCount++] = productIds[i];
+            }
+        }
+        hits.add(count - missingCount);
+        if (missingCount > 0) {
+            misses.add(missingCount);
+            result.putAll(load(missing, missingCount));
+        }
+        return result;
+    }
+
+    // null if no product has this barcode
+    public Product findByBarcode(String barcode) {
+        int id = BarcodeIndex.shared().find(barcode);
+        return id == BarcodeIndex.NOT_FOUND ? null : get(id);
+    }
+
+    // Products of one category ("aisle"), ordered by id
+    public List<Product> productsInCategory(int categoryId) {
+        int[] ids;
+        synchronized (this) {
+            ids = idsByCategory.get(categoryId);
+        }
+        if (ids != null) {
+            Map<Integer, Product> products = getAll(ids, ids.length);
+            List<Product> list = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                Product p = products.get(id);
+                if (p != null) list.add(p);
+            }
+            return list;
+        }
+
+        misses.increment();
+        String sql = "SELECT " + COLUMNS + " FROM products WHERE category_id = ? ORDER BY id";
+        Snapshot snap = snapshot();
+        List<Product> list = new ArrayList<>();
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, categoryId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(map(rs));
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ Failed to load products of category " + categoryId + ": " + e.getMessage());
+            return list;
+        }
+
+        int[] loadedIds = new int[list.size()];
+        for (int i = 0; i < loadedIds.length; i++) loadedIds[i] = list.get(i).getId();
+        synchronized (this) {
+            if (snap.epoch() == epoch && snap.categoryEpoch() == categoryEpoch) idsByCategory.put(categoryId, loadedIds);
+        }
+        cacheAll(list, snap);
+        return list;
+    }
+
+    // ---- invalidation ----
+
+    // The product's row changed (price, name...): dropped, reloaded on next lookup.
+    // Category listings are kept: call invalidateCategory if it changed aisle.
+    public synchronized void invalidate(int productId) {
+        versions[stripe(productId)]++;
+        invalidations.increment();
+        byId.remove(productId);
+    }
+
+    public synchronized void invalidate(int[] productIds, int count) {
+        for (int i = 0; i < count; i++) invalidate(productIds[i]);
+    }
+
+    // Committed stock levels (absolute, not deltas: a row loaded after the commit already has
+    // them). The cached rows, if any, are patched in place, so a sale doesn't turn the next
+    // scan of a best-seller into a query.
+    public synchronized void stockUpdated(int[] productIds, int[] stockLevels, int count) {
+        for (int i = 0; i < count; i++) {
+            int id = productIds[i];
+            versions[stripe(id)]++; // a load in flight may have read the old stock
+            Product p = byId.get(id);
+            if (p != null) byId.put(id, p.withStockQuantity(stockLevels[i]));
+        }
+    }
+
+    // A product was added to (or moved into) this category
+    public synchronized void invalidateCategory(int categoryId) {
+        categoryEpoch++;
+        invalidations.increment();
+        idsByCategory.remove(categoryId);
+    }
+
+    public synchronized void invalidateAll() {
+        epoch++;
+        categoryEpoch++;
+        invalidations.increment();
+        byId.clear();
+        idsByCategory.clear();
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (this) {
+            size = byId.size();
+        }
+        return new Stats(size, maxEntries, hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+
+    public record Stats(int size, int maxEntries, long hits, long misses, long evictions, long invalidations) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("catalog size=%d/%d hits=%d misses=%d hitRate=%.1f%% evictions=%d invalidations=%d",
+                    size, maxEntries, hits, misses, hitRate() * 100, evictions, invalidations);
+        }
+    }
+
+    // ---- loading ----
+
+    private Map<Integer, Product> load(int[] ids, int count) {
+        String sql = "SELECT " + COLUMNS + " FROM products WHERE id IN (" + InClause.placeholders(count) + ")";
+        Snapshot snap = snapshot();
+        List<Product> loaded = new ArrayList<>(count);
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            InClause.bind(ps, 1, ids, count);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) loaded.add(map(rs));
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ Failed to load products: " + e.getMessage());
+        }
+        cacheAll(loaded, snap);
+
+        Map<Integer, Product> result = new HashMap<>(loaded.size() * 2);
+        for (Product p : loaded) result.put(p.getId(), p);
+        return result;
+    }
+
+    private synchronized Snapshot snapshot() {
+        return new Snapshot(epoch, categoryEpoch, versions.clone());
+    }
+
+    private synchronized void cacheAll(List<Product> products, Snapshot snap) {
+        if (snap.epoch() != epoch) return; // everything was invalidated while we were reading
+        for (Product p : products) {
+            int stripe = stripe(p.getId());
+            if (versions[stripe] == snap.versions()[stripe]) byId.put(p.getId(), p); // else: changed meanwhile
+        }
+    }
+
+    private static int stripe(int productId) {
+        return productId & (VERSION_STRIPES - 1);
+    }
+
+    static Product map(ResultSet rs) throws SQLException {
+        return new Product(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getString("barcode"),
+                rs.getInt("category_id"),
+                rs.getInt("supplier_id"),
+                rs.getDouble("purchase_price"),
+                rs.getDouble("selling_price"),
+                rs.getInt("stock_quantity")
+        );
+    }
+}
@@ -0,0 +1,367 @@
+package org.example.service;
+
+import org.example.db.Database;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+import org.example.metrics.Timer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Bulk product import from CSV (e.g. a new supplier's catalog).
+// The file is streamed line by line through a buffered reader, so memory stays constant
+// whatever its size: only one batch of rows is held at a time. Each batch is written in ONE
+// transaction: a batched INSERT of the products, then a batched 'IN' stock movement for each
+// new product with stock. A bad row (missing field, unknown category, duplicate barcode...)
+// is reported with its line number and skipped; it never aborts the rest of the file.
+// A row the database itself refuses fails its whole batch: the batch is then rolled back and
+// split in halves, recursively, until only the failing rows are left to reject.
+//
+// Expected header (any column order, case-insensitive):
+//   name,barcode,category,supplier,purchase_price,selling_price,stock_quantity
+// category / supplier are names, resolved to ids (optionally created when missing).
+// barcode is required: it identifies the product (re-importing a file skips what's already there).
+public class ProductImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 5_000;
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final String[] COLUMNS =
+            {"name", "barcode", "category", "supplier", "purchase_price", "selling_price", "stock_quantity"};
+
+    private static final Timer IMPORT = Metrics.timer("stock.import");
+    private static final Counter IMPORTED_ROWS = Metrics.counter("stock.import.rows");
+
+    public record RowError(long line, String message) {
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+
+    // errors holds the first MAX_REPORTED_ERRORS; rejected counts them all
+    public record Report(long rowsRead, long imported, long rejected, long elapsedNanos, List<RowError> errors) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rowsRead * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows read, %d imported, %d rejected in %.1fs (%.0f rows/s)",
+                    rowsRead, imported, rejected, elapsedNanos / 1e9, rowsPerSecond());
+        }
+    }
+
+    // One parsed, resolved CSV line waiting for its batch
+    private record Row(long line, String name, String barcode, int categoryId, int supplierId,
+                       double purchasePrice, double sellingPrice, int stockQuantity) {}
+
+    private final int batchSize;
+    private final boolean createMissing;
+
+    // Names are matched ignoring case; filled once, then by createMissing
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final Map<String, Integer> supplierIds = new HashMap<>();
+
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private final List<RowError> errors = new ArrayList<>();
+
+    // createMissing: unknown category / supplier names are created instead of rejecting the row
+    public ProductImporter(int batchSize, boolean createMissing) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be >= 1");
+        this.batchSize = batchSize;
+        this.createMissing = createMissing;
+    }
+
+    public Report importCsv(Path file, int userId) throws IOException, SQLException {
+        // 1 MB buffer: big sequential reads, constant memory
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            return importCsv(new BufferedReader(reader, 1 << 20), userId);
+        }
+    }
+
+    public Report importCsv(BufferedReader in, int userId) throws IOException, SQLException {
+        long t = IMPORT.start();
+        long start = System.nanoTime();
+        rowsRead = imported = rejected = 0;
+        errors.clear();
+
+        boolean ok = false;
+        try {
+            String header = in.readLine();
+            if (header == null) throw new IOException("Empty file");
+            int[] column = mapColumns(parseLine(stripBom(header)));
+
+            loadNames("SELECT id, name FROM categories", categoryIds);
+            loadNames("SELECT id, name FROM suppliers", supplierIds);
+
+            List<List<String>> pending = new ArrayList<>(batchSize);
+            List<Long> pendingLines = new ArrayList<>(batchSize);
+            long lineNo = 1;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                rowsRead++;
+                pending.add(parseLine(line));
+                pendingLines.add(lineNo);
+                if (pending.size() == batchSize) {
+                    writeBatch(pending, pendingLines, column, userId);
+                    pending.clear();
+                    pendingLines.clear();
+                    System.out.printf("⏳ %d rows (%d imported, %d rejected)...%n", rowsRead, imported, rejected);
+                }
+            }
+            if (!pending.isEmpty()) writeBatch(pending, pendingLines, column, userId);
+            ok = true;
+        } finally {
+            IMPORT.stop(t, ok);
+            if (imported > 0) {
+                // The new rows must be visible to lookups, scans and name filters
+                ProductCatalog.shared().invalidateAll();
+                BarcodeIndex.shared().reload();
+            }
+            if (createMissing) {
+                CategoryService.invalidateIndex();
+                SupplierService.invalidateIndex();
+            }
+        }
+
+        IMPORTED_ROWS.add(imported);
+        return new Report(rowsRead, imported, rejected, System.nanoTime() - start, List.copyOf(errors));
+    }
+
+    // ---- one batch = one transaction ----
+
+    // Writes the batch, or bisects it if the database refuses it (see the class comment)
+    private void writeBatch(List<List<String>> fields, List<Long> lines, int[] column, int userId) throws SQLException {
+        Exception failure = tryBatch(fields, lines, column, userId);
+        if (failure == null) return;
+        if (fields.size() == 1) {
+            reject(lines.get(0), "insert failed: " + failure.getMessage());
+            return;
+        }
+        int half = fields.size() / 2;
+        writeBatch(fields.subList(0, half), lines.subList(0, half), column, userId);
+        writeBatch(fields.subList(half, fields.size()), lines.subList(half, lines.size()), column, userId);
+    }
+
+    // null once committed; otherwise everything is rolled back and the error returned
+    private Exception tryBatch(List<List<String>> fields, List<Long> lines, int[] column, int userId) throws SQLException {
+        // Only a barcode conflict is skipped: any other constraint violation fails the batch
+        String insertProduct = """
+            INSERT INTO products
+            (name, barcode, category_id, supplier_id, purchase_price, selling_price, stock_quantity, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+            ON CONFLICT(barcode) DO NOTHING
+        """;
+        // Looked up through the barcode's UNIQUE index: no generated keys needed per row
+        String insertMovement = """
+            INSERT INTO stock_movements (product_id, user_id, movement_type, quantity, created_at)
+            SELECT id, ?, 'IN', ?, CURRENT_TIMESTAMP FROM products WHERE barcode = ?
+        """;
+
+        long rejectedBefore = rejected;
+        int errorsBefore = errors.size();
+
+        try (Connection conn = Database.getWriteConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // A. Validate and resolve names (may create categories / suppliers)
+                List<Row> rows = new ArrayList<>(fields.size());
+                for (int i = 0; i < fields.size(); i++) {
+                    Row row = toRow(conn, lines.get(i), fields.get(i), column);
+                    if (row != null) rows.add(row);
+                }
+
+                // B. Products, one batch
+                int[] inserted;
+                try (PreparedStatement ps = conn.prepareStatement(insertProduct)) {
+                    for (Row r : rows) {
+                        ps.setString(1, r.name());
+                        ps.setString(2, r.barcode());
+                        ps.setInt(3, r.categoryId());
+                        ps.setInt(4, r.supplierId());
+                        ps.setDouble(5, r.purchasePrice());
+                        ps.setDouble(6, r.sellingPrice());
+                        ps.setInt(7, r.stockQuantity());
+                        ps.addBatch();
+                    }
+                    inserted = ps.executeBatch();
+                }
+
+                // C. Initial stock as 'IN' movements, one batch
+                int added = 0;
+                try (PreparedStatement ps = conn.prepareStatement(insertMovement)) {
+                    int movements = 0;
+                    for (int i = 0; i < rows.size(); i++) {
+                        Row r = rows.get(i);
+                        if (inserted[i] == 0) {
+                            reject(r.line(), "barcode " + r.barcode() + " already exists");
+                            continue;
+                        }
+                        added++;
+                        if (r.stockQuantity() > 0) {
+                            ps.setInt(1, userId);
+                            ps.setInt(2, r.stockQuantity());
+                            ps.setString(3, r.barcode());
+                            ps.addBatch();
+                            movements++;
+                        }
+                    }
+                    if (movements > 0) ps.executeBatch();
+                }
+
+                conn.commit();
+                imported += added;
+                return null;
+
+            } catch (SQLException | RuntimeException e) {
+                // Nothing of the batch is kept, not even its rejections: the caller retries it in halves
+                conn.rollback();
+                rejected = rejectedBefore;
+                errors.subList(Math.min(errorsBefore, errors.size()), errors.size()).clear();
+                if (createMissing) { // names created by this batch were rolled back too
+                    loadNames("SELECT id, name FROM categories", categoryIds);
+                    loadNames("SELECT id, name FROM suppliers", supplierIds);
+                }
+                return e;
+            }
+        }
+    }
+
+    // null (and the row is rejected) if a field is missing or invalid
+    private Row toRow(Connection conn, long line, List<String> f, int[] column) throws SQLException {
+        if (f.size() < COLUMNS.length) {
+            reject(line, "expected " + COLUMNS.length + " fields, got " + f.size());
+            return null;
+        }
+        String name = f.get(column[0]).trim();
+        String barcode = f.get(column[1]).trim();
+        if (name.isEmpty()) return reject(line, "name is empty");
+        if (barcode.isEmpty()) return reject(line, "barcode is empty");
+
+        Integer categoryId = resolve(conn, "categories", categoryIds, f.get(column[2]).trim());
+        if (categoryId == null) return reject(line, "unknown category '" + f.get(column[2]).trim() + "'");
+        Integer supplierId = resolve(conn, "suppliers", supplierIds, f.get(column[3]).trim());
+        if (supplierId == null) return reject(line, "unknown supplier '" + f.get(column[3]).trim() + "'");
+
+        double purchasePrice, sellingPrice;
+        int stock;
+        try {
+            purchasePrice = Double.parseDouble(f.get(column[4]).trim());
+            sellingPrice = Double.parseDouble(f.get(column[5]).trim());
+            String qty = f.get(column[6]).trim();
+            stock = qty.isEmpty() ? 0 : Integer.parseInt(qty);
+        } catch (NumberFormatException e) {
+            return reject(line, "invalid number (" + e.getMessage() + ")");
+        }
+        // NaN / Infinity would be stored as NULL (or refused) by SQLite
+        if (!Double.isFinite(purchasePrice) || !Double.isFinite(sellingPrice)) return reject(line, "invalid price");
+        if (purchasePrice < 0 || sellingPrice < 0) return reject(line, "negative price");
+        if (stock < 0) return reject(line, "negative stock quantity");
+
+        return new Row(line, name, barcode, categoryId, supplierId, purchasePrice, sellingPrice, stock);
+    }
+
+    private Integer resolve(Connection conn, String table, Map<String, Integer> ids, String name) throws SQLException {
+        if (name.isEmpty()) return null;
+        String key = name.toLowerCase(Locale.ROOT);
+        Integer id = ids.get(key);
+        if (id != null || !createMissing) return id;
+
+        // Part of the batch's transaction: rolled back with it if the batch fails
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO " + table + " (name) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, name);
+            ps.executeUpdate();
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                rs.next();
+                id = rs.getInt(1);
+            }
+        }
+        ids.put(key, id);
+        return id;
+    }
+
+    private Row reject(long line, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new RowError(line, message));
+        return null;
+    }
+
+    private static void loadNames(String sql, Map<String, Integer> ids) throws SQLException {
+        ids.clear();
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) ids.put(rs.getString(2).trim().toLowerCase(Locale.ROOT), rs.getInt(1));
+        }
+    }
+
+    // ---- CSV ----
+
+    // Index of each expected column in the file
+    private static int[] mapColumns(List<String> header) throws IOException {
+        int[] column = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            column[c] = -1;
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).trim().equalsIgnoreCase(COLUMNS[c])) column[c] = i;
+            }
+            if (column[c] < 0) throw new IOException("Missing column '" + COLUMNS[c] + "' in header");
+        }
+        return column;
+    }
+
+    private static String stripBom(String line) {
+        return !line.isEmpty() && line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+    }
+
+    // Comma-separated, "quoted" fields may contain commas and "" for a quote (no line breaks)
+    static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS.length);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
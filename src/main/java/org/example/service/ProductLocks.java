@@ -0,0 +1,79 @@
+package org.example.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Striped in-process locks over product ids.
+// A sale locks only the stripes of the products in its basket. Stripes are always taken in
+// ascending order, which makes two overlapping baskets unable to deadlock.
+// They don't make sales run in parallel: in both storage modes every write transaction goes
+// through the single writer connection (see Database), so baskets with no product in common
+// are still serialized there. Overselling is prevented by the guarded "stock_quantity >= ?"
+// UPDATE, which also holds across processes; these locks only order sales of the same
+// products inside this JVM.
+public final class ProductLocks {
+
+    private static final ProductLocks SHARED = new ProductLocks(64);
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public ProductLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) stripes[i] = new ReentrantLock();
+        this.mask = size - 1;
+    }
+
+    public static ProductLocks shared() {
+        return SHARED;
+    }
+
+    // Locks every stripe covering productIds[0..count); close() the result to unlock
+    public Held lock(int[] productIds, int count) {
+        int[] indexes = new int[count];
+        for (int i = 0; i < count; i++) indexes[i] = stripeOf(productIds[i]);
+        Arrays.sort(indexes);
+
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || indexes[distinct - 1] != indexes[i]) indexes[distinct++] = indexes[i];
+        }
+
+        int locked = 0;
+        try {
+            for (; locked < distinct; locked++) stripes[indexes[locked]].lock();
+        } catch (RuntimeException | Error e) {
+            for (int i = locked - 1; i >= 0; i--) stripes[indexes[i]].unlock();
+            throw e;
+        }
+        return new Held(indexes, distinct);
+    }
+
+    public Held lock(int productId) {
+        return lock(new int[]{productId}, 1);
+    }
+
+    private int stripeOf(int productId) {
+        int h = productId * 0x9E3779B9; // spread consecutive ids over different stripes
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public final class Held implements AutoCloseable {
+        private final int[] indexes;
+        private final int count;
+        private boolean released = false;
+
+        private Held(int[] indexes, int count) {
+            this.indexes = indexes;
+            this.count = count;
+        }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            for (int i = count - 1; i >= 0; i--) stripes[indexes[i]].unlock();
+        }
+    }
+}
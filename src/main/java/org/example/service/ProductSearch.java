@@ -0,0 +1,69 @@
+package org.example.service;
+
+import org.example.db.Database;
+import org.example.model.Product;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Product name/barcode search backed by the products_fts FTS5 index (migration V4).
+// Every word of the query is matched as a prefix ("choc milk" finds "Chocolate Milk 1L"),
+// results are ranked with bm25 (name weighs more than barcode) and returned one page at a time.
+public class ProductSearch {
+
+    public record Page(List<Product> items, int page, int pageSize, boolean hasMore) {}
+
+    private static final String SQL = """
+        SELECT p.id, p.name, p.barcode, p.category_id, p.supplier_id,
+               p.purchase_price, p.selling_price, p.stock_quantity
+        FROM products_fts
+        JOIN products p ON p.id = products_fts.rowid
+        WHERE products_fts MATCH ?
+        ORDER BY bm25(products_fts, 10.0, 1.0), p.id
+        LIMIT ? OFFSET ?
+    """;
+
+    // page is 0-based
+    public Page search(String query, int page, int pageSize) throws SQLException {
+        String match = toMatchExpression(query);
+        if (match == null) return new Page(List.of(), page, pageSize, false);
+
+        List<Product> items = new ArrayList<>(pageSize + 1);
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL)) {
+            ps.setString(1, match);
+            ps.setInt(2, pageSize + 1); // one extra row tells us whether there is a next page
+            ps.setInt(3, page * pageSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) items.add(ProductCatalog.map(rs));
+            }
+        }
+
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) items.remove(pageSize);
+        return new Page(items, page, pageSize, hasMore);
+    }
+
+    // "choc  milk" -> "choc"* "milk"*  (implicit AND). Words are quoted so user input
+    // can never be read as FTS5 syntax (AND/OR/NEAR, column filters, ...).
+    static String toMatchExpression(String query) {
+        if (query == null) return null;
+        StringBuilder sb = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= query.length(); i++) {
+            char c = i < query.length() ? query.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append('"').append(word).append("\"*");
+                word.setLength(0);
+            }
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+}
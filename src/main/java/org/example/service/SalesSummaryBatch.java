@@ -0,0 +1,95 @@
+package org.example.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Batched upserts into the daily summary tables, inside a transaction the caller owns.
+// Every add... call accumulates onto the (day, key) row, creating it if needed, so the same
+// key may be added several times in one batch (two lines of one category, two chunks of
+// a rebuild covering the same day...). Nothing is written before execute().
+public class SalesSummaryBatch implements AutoCloseable {
+
+    private static final String UPSERT_PRODUCT = """
+        INSERT INTO daily_product_sales%1$s (day, product_id, quantity, revenue, line_count) VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT(day, product_id) DO UPDATE SET
+            quantity = quantity + excluded.quantity,
+            revenue = revenue + excluded.revenue,
+            line_count = line_count + excluded.line_count
+    """;
+    private static final String UPSERT_CATEGORY = """
+        INSERT INTO daily_category_sales%1$s (day, category_id, quantity, revenue) VALUES (?, ?, ?, ?)
+        ON CONFLICT(day, category_id) DO UPDATE SET
+            quantity = quantity + excluded.quantity,
+            revenue = revenue + excluded.revenue
+    """;
+    private static final String UPSERT_CASHIER = """
+        INSERT INTO daily_cashier_sales%1$s (day, cashier_id, invoice_count, item_count, revenue) VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT(day, cashier_id) DO UPDATE SET
+            invoice_count = invoice_count + excluded.invoice_count,
+            item_count = item_count + excluded.item_count,
+            revenue = revenue + excluded.revenue
+    """;
+
+    private final PreparedStatement products;
+    private final PreparedStatement categories;
+    private final PreparedStatement cashiers;
+    private int pendingProducts;
+    private int pendingCategories;
+    private int pendingCashiers;
+
+    public SalesSummaryBatch(Connection conn) throws SQLException {
+        this(conn, "");
+    }
+
+    // tableSuffix: writes to daily_*_sales<suffix> instead (the shadow tables of a rebuild)
+    public SalesSummaryBatch(Connection conn, String tableSuffix) throws SQLException {
+        this.products = conn.prepareStatement(String.format(UPSERT_PRODUCT, tableSuffix));
+        this.categories = conn.prepareStatement(String.format(UPSERT_CATEGORY, tableSuffix));
+        this.cashiers = conn.prepareStatement(String.format(UPSERT_CASHIER, tableSuffix));
+    }
+
+    public void addProduct(String day, int productId, long quantity, double revenue, long lines) throws SQLException {
+        products.setString(1, day);
+        products.setInt(2, productId);
+        products.setLong(3, quantity);
+        products.setDouble(4, revenue);
+        products.setLong(5, lines);
+        products.addBatch();
+        pendingProducts++;
+    }
+
+    // categoryId 0 = no category
+    public void addCategory(String day, int categoryId, long quantity, double revenue) throws SQLException {
+        categories.setString(1, day);
+        categories.setInt(2, categoryId);
+        categories.setLong(3, quantity);
+        categories.setDouble(4, revenue);
+        categories.addBatch();
+        pendingCategories++;
+    }
+
+    public void addCashier(String day, int cashierId, long invoices, long items, double revenue) throws SQLException {
+        cashiers.setString(1, day);
+        cashiers.setInt(2, cashierId);
+        cashiers.setLong(3, invoices);
+        cashiers.setLong(4, items);
+        cashiers.setDouble(5, revenue);
+        cashiers.addBatch();
+        pendingCashiers++;
+    }
+
+    public void execute() throws SQLException {
+        if (pendingProducts > 0) products.executeBatch();
+        if (pendingCategories > 0) categories.executeBatch();
+        if (pendingCashiers > 0) cashiers.executeBatch();
+        pendingProducts = pendingCategories = pendingCashiers = 0;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (products; categories; cashiers) {
+            // closes all three, even if one fails
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package org.example.service;
+
+import org.example.db.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// Sales questions (revenue per day, best sellers, per category, per cashier) answered from
+// the daily summary tables that checkout keeps up to date: a few rows per day instead of a
+// scan of invoices x invoice_items x products.
+// rebuild() recomputes the tables from the invoice history, in parallel.
+public class SalesSummaryService {
+
+    public record DaySales(LocalDate day, long invoices, long items, double revenue) {
+        @Override
+        public String toString() {
+            return String.format("%s  %6d invoices  %8d items  $%,12.2f", day, invoices, items, revenue);
+        }
+    }
+
+    // A product or category over a period
+    public record Ranking(int id, String name, long quantity, double revenue) {
+        @Override
+        public String toString() {
+            return String.format("#%-6d %-30s %8d sold  $%,12.2f", id, name, quantity, revenue);
+        }
+    }
+
+    public record CashierSales(int cashierId, String username, long invoices, long items, double revenue) {
+        @Override
+        public String toString() {
+            return String.format("#%-4d %-20s %6d invoices  %8d items  $%,12.2f", cashierId, username, invoices, items, revenue);
+        }
+    }
+
+    public record RebuildReport(long invoices, int chunks, long summaryRows, long elapsedNanos) {
+        @Override
+        public String toString() {
+            return String.format("%d invoices summarized into %d rows (%d chunks) in %.1fs",
+                    invoices, summaryRows, chunks, elapsedNanos / 1e9);
+        }
+    }
+
+    private final Executor executor;
+
+    public SalesSummaryService() {
+        this(ServiceExecutors.database());
+    }
+
+    // executor: runs the rebuild's chunks (and bounds how many run at once)
+    public SalesSummaryService(Executor executor) {
+        this.executor = executor;
+    }
+
+    // ============ QUERIES (from, to inclusive) ============
+
+    public List<DaySales> dailySales(LocalDate from, LocalDate to) throws SQLException {
+        String sql = """
+            SELECT day, SUM(invoice_count), SUM(item_count), SUM(revenue)
+            FROM daily_cashier_sales WHERE day BETWEEN ? AND ?
+            GROUP BY day ORDER BY day
+        """;
+        List<DaySales> days = new ArrayList<>();
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, from.toString());
+            ps.setString(2, to.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    days.add(new DaySales(LocalDate.parse(rs.getString(1)), rs.getLong(2), rs.getLong(3), rs.getDouble(4)));
+                }
+            }
+        }
+        return days;
+    }
+
+    // Best sellers by revenue
+    public List<Ranking> topProducts(LocalDate from, LocalDate to, int limit) throws SQLException {
+        String sql = """
+            SELECT s.product_id, COALESCE(p.name, '?'), SUM(s.quantity) AS qty, SUM(s.revenue) AS revenue
+            FROM daily_product_sales s LEFT JOIN products p ON p.id = s.product_id
+            WHERE s.day BETWEEN ? AND ?
+            GROUP BY s.product_id ORDER BY revenue DESC LIMIT ?
+        """;
+        return rankings(sql, from, to, limit);
+    }
+
+    public List<Ranking> categorySales(LocalDate from, LocalDate to) throws SQLException {
+        String sql = """
+            SELECT s.category_id, COALESCE(c.name, '(no category)'), SUM(s.quantity) AS qty, SUM(s.revenue) AS revenue
+            FROM daily_category_sales s LEFT JOIN categories c ON c.id = s.category_id
+            WHERE s.day BETWEEN ? AND ?
+            GROUP BY s.category_id ORDER BY revenue DESC LIMIT ?
+        """;
+        return rankings(sql, from, to, Integer.MAX_VALUE);
+    }
+
+    public List<CashierSales> cashierSales(LocalDate from, LocalDate to) throws SQLException {
+        String sql = """
+            SELECT s.cashier_id, COALESCE(u.username, '?'), SUM(s.invoice_count), SUM(s.item_count), SUM(s.revenue) AS revenue
+            FROM daily_cashier_sales s LEFT JOIN users u ON u.id = s.cashier_id
+            WHERE s.day BETWEEN ? AND ?
+            GROUP BY s.cashier_id ORDER BY revenue DESC
+        """;
+        List<CashierSales> cashiers = new ArrayList<>();
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, from.toString());
+            ps.setString(2, to.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    cashiers.add(new CashierSales(rs.getInt(1), rs.getString(2), rs.getLong(3), rs.getLong(4), rs.getDouble(5)));
+                }
+            }
+        }
+        return cashiers;
+    }
+
+    private List<Ranking> rankings(String sql, LocalDate from, LocalDate to, int limit) throws SQLException {
+        List<Ranking> rows = new ArrayList<>();
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, from.toString());
+            ps.setString(2, to.toString());
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Ranking(rs.getInt(1), rs.getString(2), rs.getLong(3), rs.getDouble(4)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    // ============ REBUILD ============
+
+    // One summary row as aggregated from the history; count = lines (product) or invoices (cashier)
+    private record Aggregate(String day, int key, long quantity, long count, double revenue) {}
+
+    private record Partial(List<Aggregate> products, List<Aggregate> categories, List<Aggregate> cashiers) {
+        long size() {
+            return products.size() + categories.size() + cashiers.size();
+        }
+    }
+
+    // Invoices aggregated (and written to the shadow tables) per chunk: each chunk holds the
+    // writer for one short transaction, so checkout lanes keep selling during a rebuild
+    public static final int CHUNK_INVOICES = 5_000;
+
+    private static final String SHADOW = "_rebuild";
+    private static final String[] TABLES = {"daily_product_sales", "daily_category_sales", "daily_cashier_sales"};
+    // Same definitions as V7 (%s = table name)
+    private static final String[] CREATE_TABLES = {
+            """
+            CREATE TABLE %s (
+                day TEXT NOT NULL, product_id INTEGER NOT NULL,
+                quantity INTEGER NOT NULL DEFAULT 0, revenue REAL NOT NULL DEFAULT 0, line_count INTEGER NOT NULL DEFAULT 0,
+                PRIMARY KEY (day, product_id)
+            ) WITHOUT ROWID""",
+            """
+            CREATE TABLE %s (
+                day TEXT NOT NULL, category_id INTEGER NOT NULL,
+                quantity INTEGER NOT NULL DEFAULT 0, revenue REAL NOT NULL DEFAULT 0,
+                PRIMARY KEY (day, category_id)
+            ) WITHOUT ROWID""",
+            """
+            CREATE TABLE %s (
+                day TEXT NOT NULL, cashier_id INTEGER NOT NULL,
+                invoice_count INTEGER NOT NULL DEFAULT 0, item_count INTEGER NOT NULL DEFAULT 0, revenue REAL NOT NULL DEFAULT 0,
+                PRIMARY KEY (day, cashier_id)
+            ) WITHOUT ROWID"""
+    };
+    private static final String CREATE_PRODUCT_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_daily_product_sales_product ON daily_product_sales(product_id, day)";
+
+    // Recomputes the three tables from invoices / invoice_items, without blocking checkout.
+    // A. Empty shadow tables (<table>_rebuild) are created.
+    // B. Invoices up to the current max id are cut into chunks of CHUNK_INVOICES ids. Chunks run
+    //    in parallel (bounded by the executor): each is aggregated on a read connection
+    //    (committed invoices never change), then upserted into the shadows in its own short
+    //    write transaction. Memory holds a few chunks' aggregates, never the whole history.
+    // C. One short write transaction catches the shadows up on the invoices committed since A,
+    //    then swaps them in for the live tables (DROP + RENAME), so no sale is lost or counted twice.
+    // Categories are those of the products today (a product moved since is counted in its new aisle).
+    public RebuildReport rebuild() throws SQLException {
+        long start = System.nanoTime();
+
+        long maxId;
+        long invoices;
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(id), 0), COUNT(*) FROM invoices");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            maxId = rs.getLong(1);
+            invoices = rs.getLong(2);
+        }
+
+        boolean swapped = false;
+        try {
+            // A. Shadow tables
+            inWriteTransaction(conn -> {
+                for (int i = 0; i < TABLES.length; i++) {
+                    execute(conn, "DROP TABLE IF EXISTS " + TABLES[i] + SHADOW);
+                    execute(conn, String.format(CREATE_TABLES[i], TABLES[i] + SHADOW));
+                }
+                return 0L;
+            });
+
+            // B. History, chunk by chunk
+            List<CompletableFuture<Long>> chunks = new ArrayList<>();
+            for (long lo = 1; lo <= maxId; lo += CHUNK_INVOICES) {
+                long first = lo;
+                long last = Math.min(maxId, lo + CHUNK_INVOICES - 1);
+                chunks.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        Partial partial;
+                        try (Connection conn = Database.getReadConnection()) {
+                            partial = aggregate(conn, first, last);
+                        }
+                        return inWriteTransaction(conn -> writeShadow(conn, partial));
+                    } catch (SQLException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+            long rows = 0;
+            try {
+                for (CompletableFuture<Long> chunk : chunks) rows += chunk.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof SQLException sql) throw sql;
+                throw e;
+            }
+
+            // C. Catch up and swap
+            long[] caughtUp = new long[2];
+            rows += inWriteTransaction(conn -> {
+                Partial catchUp = aggregate(conn, maxId + 1, Long.MAX_VALUE);
+                caughtUp[0] = catchUp.cashiers().stream().mapToLong(Aggregate::count).sum();
+                long written = writeShadow(conn, catchUp);
+                for (String table : TABLES) {
+                    execute(conn, "DROP TABLE " + table);
+                    execute(conn, "ALTER TABLE " + table + SHADOW + " RENAME TO " + table);
+                }
+                execute(conn, CREATE_PRODUCT_INDEX);
+                return written;
+            });
+            swapped = true;
+            invoices += caughtUp[0];
+            return new RebuildReport(invoices, chunks.size(), rows, System.nanoTime() - start);
+
+        } finally {
+            if (!swapped) dropShadows();
+        }
+    }
+
+    private long writeShadow(Connection conn, Partial partial) throws SQLException {
+        try (SalesSummaryBatch batch = new SalesSummaryBatch(conn, SHADOW)) {
+            for (Aggregate a : partial.products()) batch.addProduct(a.day(), a.key(), a.quantity(), a.revenue(), a.count());
+            for (Aggregate a : partial.categories()) batch.addCategory(a.day(), a.key(), a.quantity(), a.revenue());
+            for (Aggregate a : partial.cashiers()) batch.addCashier(a.day(), a.key(), a.count(), a.quantity(), a.revenue());
+            batch.execute();
+        }
+        return partial.size();
+    }
+
+    private void dropShadows() {
+        try {
+            inWriteTransaction(conn -> {
+                for (String table : TABLES) execute(conn, "DROP TABLE IF EXISTS " + table + SHADOW);
+                return 0L;
+            });
+        } catch (Exception e) {
+            System.out.println("⚠️ Could not drop the rebuild tables: " + e.getMessage());
+        }
+    }
+
+    private interface WriteWork {
+        long run(Connection conn) throws SQLException;
+    }
+
+    private static long inWriteTransaction(WriteWork work) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = Database.getWriteConnection();
+            conn.setAutoCommit(false);
+            long result = work.run(conn);
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (Exception ignored) {
+            }
+            throw e;
+        } finally {
+            try {
+                if (conn != null) conn.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    // Summary rows of the invoices with firstId <= id <= lastId
+    private Partial aggregate(Connection conn, long firstId, long lastId) throws SQLException {
+        String products = """
+            SELECT date(i.created_at), ii.product_id, SUM(ii.quantity), COUNT(*), SUM(ii.quantity * ii.unit_price)
+            FROM invoices i JOIN invoice_items ii ON ii.invoice_id = i.id
+            WHERE i.id BETWEEN ? AND ?
+            GROUP BY date(i.created_at), ii.product_id
+        """;
+        String categories = """
+            SELECT date(i.created_at), COALESCE(p.category_id, 0), SUM(ii.quantity), COUNT(*), SUM(ii.quantity * ii.unit_price)
+            FROM invoices i
+            JOIN invoice_items ii ON ii.invoice_id = i.id
+            JOIN products p ON p.id = ii.product_id
+            WHERE i.id BETWEEN ? AND ?
+            GROUP BY date(i.created_at), COALESCE(p.category_id, 0)
+        """;
+        String cashiers = """
+            SELECT date(i.created_at), i.cashier_id,
+                   COALESCE(SUM((SELECT SUM(quantity) FROM invoice_items WHERE invoice_id = i.id)), 0),
+                   COUNT(*), SUM(i.total_amount)
+            FROM invoices i
+            WHERE i.id BETWEEN ? AND ?
+            GROUP BY date(i.created_at), i.cashier_id
+        """;
+        return new Partial(query(conn, products, firstId, lastId),
+                query(conn, categories, firstId, lastId),
+                query(conn, cashiers, firstId, lastId));
+    }
+
+    private List<Aggregate> query(Connection conn, String sql, long firstId, long lastId) throws SQLException {
+        List<Aggregate> rows = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, firstId);
+            ps.setLong(2, lastId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Aggregate(rs.getString(1), rs.getInt(2), rs.getLong(3), rs.getLong(4), rs.getDouble(5)));
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.service;
+
+import org.example.db.Database;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executors for the services' async (CompletableFuture) APIs.
+// Their work is blocking JDBC, so it must not run on ForkJoinPool.commonPool (where it would
+// starve parallel streams and every other supplyAsync without an executor). Instead each task
+// gets its own virtual thread, and a semaphore caps how many of them talk to the database at
+// once: the rest wait, parked and cheap, instead of piling up on the connection pool.
+public class ServiceExecutors {
+
+    private static volatile Bounded database;
+    private static volatile Bounded databaseWrites;
+
+    // Default executor of the async service APIs: -Dmarchi.async.maxConcurrency tasks at a time
+    // (default: the read pool size, so lookups don't queue on the pool behind each other)
+    public static Executor database() {
+        Bounded executor = database;
+        if (executor != null) return executor;
+        synchronized (ServiceExecutors.class) {
+            if (database == null) {
+                int max = Integer.getInteger("marchi.async.maxConcurrency", Database.config().getPoolSize());
+                database = new Bounded("db-async-", max);
+            }
+            return database;
+        }
+    }
+
+    // Executor of the async service APIs that write (-Dmarchi.async.maxWriteConcurrency, default 1):
+    // SQLite has one writer (the writer pool holds one connection), so more write tasks at once
+    // would only wait for it on the pool, holding permits the lookups could use
+    public static Executor databaseWrites() {
+        Bounded executor = databaseWrites;
+        if (executor != null) return executor;
+        synchronized (ServiceExecutors.class) {
+            if (databaseWrites == null) {
+                databaseWrites = new Bounded("db-async-write-", Integer.getInteger("marchi.async.maxWriteConcurrency", 1));
+            }
+            return databaseWrites;
+        }
+    }
+
+    // One virtual thread per task, at most maxConcurrency running their task at the same time
+    public static Bounded virtualThreads(String namePrefix, int maxConcurrency) {
+        return new Bounded(namePrefix, maxConcurrency);
+    }
+
+    public static final class Bounded implements Executor {
+
+        private final ThreadFactory threads; // a factory, unlike a Thread.Builder, is thread-safe
+        private final Semaphore permits;
+        private final int maxConcurrency;
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private Bounded(String namePrefix, int maxConcurrency) {
+            if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be >= 1");
+            this.threads = Thread.ofVirtual().name(namePrefix, 1).factory();
+            this.permits = new Semaphore(maxConcurrency, true);
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (task == null) throw new NullPointerException();
+            threads.newThread(() -> {
+                // Uninterruptible: a task that never ran would leave its future incomplete forever
+                waiting.incrementAndGet();
+                permits.acquireUninterruptibly();
+                waiting.decrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            }).start();
+        }
+
+        public int maxConcurrency() { return maxConcurrency; }
+        public int running() { return maxConcurrency - permits.availablePermits(); }
+        public int waiting() { return waiting.get(); }
+
+        @Override
+        public String toString() {
+            return String.format("async executor running=%d/%d waiting=%d", running(), maxConcurrency, waiting());
+        }
+    }
+}
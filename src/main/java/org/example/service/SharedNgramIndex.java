@@ -0,0 +1,112 @@
+package org.example.service;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// One NgramIndex shared by every instance of a service (categories, suppliers): loaded on
+// first use by the service's loader, then kept current by the service's adds.
+// Adds in progress / finished are counted: an index whose load raced an add is not
+// published (the next lookup loads again), so the add is never lost (nor indexed twice).
+public class SharedNgramIndex<T> {
+
+    public interface Loader<T> {
+        List<T> load() throws SQLException;
+    }
+
+    private final String what; // for the error message, e.g. "categories"
+    private final Function<T, String> nameOf;
+    private final Loader<T> loader;
+
+    private volatile NgramIndex<T> index;
+
+    // ReentrantLocks, not monitors: get() runs on virtual threads (ServiceExecutors) and holds
+    // the load lock across JDBC calls, which would pin the carrier thread inside synchronized
+    private final ReentrantLock loading = new ReentrantLock(); // one load at a time
+    private final ReentrantLock writes = new ReentrantLock();   // guards the two counters below
+    private final Condition noWriteInFlight = writes.newCondition();
+    private int writesInFlight;
+    private long writesDone;
+
+    public SharedNgramIndex(String what, Function<T, String> nameOf, Loader<T> loader) {
+        this.what = what;
+        this.nameOf = nameOf;
+        this.loader = loader;
+    }
+
+    // Built once from one load; null if it couldn't be loaded (tried again on the next call).
+    // If an add was in progress or finished while the load ran, the row may or may not be in
+    // it: that load answers this call but isn't published, the next call loads again.
+    public NgramIndex<T> get() {
+        NgramIndex<T> idx = index;
+        if (idx != null) return idx;
+        loading.lock();
+        try {
+            if (index != null) return index;
+
+            long seen;
+            writes.lock();
+            try {
+                // Let the adds in progress finish first, so the load usually isn't stale
+                while (writesInFlight > 0) noWriteInFlight.await();
+                seen = writesDone;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                writes.unlock();
+            }
+
+            NgramIndex<T> built = new NgramIndex<>(nameOf);
+            try {
+                built.addAll(loader.load());
+            } catch (SQLException e) {
+                System.out.println("❌ Failed to load " + what + ": " + e.getMessage());
+                return null;
+            }
+
+            writes.lock();
+            try {
+                if (writesInFlight == 0 && writesDone == seen) index = built;
+            } finally {
+                writes.unlock();
+            }
+            return built;
+        } finally {
+            loading.unlock();
+        }
+    }
+
+    // Call before inserting a row, then endWrite(...) whatever happened
+    public void beginWrite() {
+        writes.lock();
+        try {
+            writesInFlight++;
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    // added: the committed row, null if the insert failed. Indexed only if the index is already
+    // published; otherwise the load in progress (if any) sees writesDone move and won't publish.
+    public void endWrite(T added) {
+        NgramIndex<T> idx;
+        writes.lock();
+        try {
+            writesInFlight--;
+            writesDone++;
+            idx = index;
+            if (writesInFlight == 0) noWriteInFlight.signalAll();
+        } finally {
+            writes.unlock();
+        }
+        if (idx != null && added != null) idx.add(added);
+    }
+
+    // Forget the index (e.g. rows were changed outside this JVM); the next get() reloads it
+    public void invalidate() {
+        index = null;
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.service;
+
+import java.time.Duration;
+
+// Knobs of the StoreSimulation load generator.
+// Defaults can be overridden with -Dmarchi.sim.* system properties, or in code.
+public class SimulationConfig {
+
+    private int shoppers = 20;
+    private boolean virtualThreads = true;
+    private int lanes = 4;
+    // Zipf exponent of product popularity: 0 = uniform, 1 = classic "few best-sellers", higher = more skewed
+    private double popularitySkew = 1.0;
+    private int meanBasketSize = 6;
+    private int maxBasketSize = 40;
+    private int maxQuantityPerLine = 3;
+    private long meanThinkTimeMillis = 500;
+    private Duration duration = Duration.ofSeconds(30);
+    private long seed = System.nanoTime();
+
+    public static SimulationConfig defaults() {
+        return new SimulationConfig();
+    }
+
+    public static SimulationConfig fromSystemProperties() {
+        SimulationConfig config = new SimulationConfig();
+        config.shoppers = Integer.getInteger("marchi.sim.shoppers", config.shoppers);
+        config.virtualThreads = Boolean.parseBoolean(
+                System.getProperty("marchi.sim.virtualThreads", String.valueOf(config.virtualThreads)));
+        config.lanes = Integer.getInteger("marchi.sim.lanes", config.lanes);
+        config.popularitySkew = Double.parseDouble(
+                System.getProperty("marchi.sim.skew", String.valueOf(config.popularitySkew)));
+        config.meanBasketSize = Integer.getInteger("marchi.sim.basketSize", config.meanBasketSize);
+        config.maxBasketSize = Integer.getInteger("marchi.sim.maxBasketSize", config.maxBasketSize);
+        config.maxQuantityPerLine = Integer.getInteger("marchi.sim.maxQuantity", config.maxQuantityPerLine);
+        config.meanThinkTimeMillis = Long.getLong("marchi.sim.thinkTimeMs", config.meanThinkTimeMillis);
+        config.duration = Duration.ofSeconds(Long.getLong("marchi.sim.durationSeconds", config.duration.toSeconds()));
+        config.seed = Long.getLong("marchi.sim.seed", config.seed);
+        return config;
+    }
+
+    public SimulationConfig shoppers(int shoppers) {
+        if (shoppers < 1) throw new IllegalArgumentException("shoppers must be >= 1");
+        this.shoppers = shoppers;
+        return this;
+    }
+
+    // One virtual thread per shopper (thousands are cheap) instead of platform threads
+    public SimulationConfig virtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    // Checkouts that can be served at the same time
+    public SimulationConfig lanes(int lanes) {
+        if (lanes < 1) throw new IllegalArgumentException("lanes must be >= 1");
+        this.lanes = lanes;
+        return this;
+    }
+
+    public SimulationConfig popularitySkew(double popularitySkew) {
+        if (popularitySkew < 0) throw new IllegalArgumentException("popularitySkew must be >= 0");
+        this.popularitySkew = popularitySkew;
+        return this;
+    }
+
+    // Distinct products per basket: geometric with this mean, capped at maxBasketSize
+    public SimulationConfig meanBasketSize(int meanBasketSize) {
+        if (meanBasketSize < 1) throw new IllegalArgumentException("meanBasketSize must be >= 1");
+        this.meanBasketSize = meanBasketSize;
+        return this;
+    }
+
+    public SimulationConfig maxBasketSize(int maxBasketSize) {
+        if (maxBasketSize < 1) throw new IllegalArgumentException("maxBasketSize must be >= 1");
+        this.maxBasketSize = maxBasketSize;
+        return this;
+    }
+
+    public SimulationConfig maxQuantityPerLine(int maxQuantityPerLine) {
+        if (maxQuantityPerLine < 1) throw new IllegalArgumentException("maxQuantityPerLine must be >= 1");
+        this.maxQuantityPerLine = maxQuantityPerLine;
+        return this;
+    }
+
+    // Time spent shopping between two checkouts: exponential with this mean (0 = closed loop)
+    public SimulationConfig meanThinkTimeMillis(long meanThinkTimeMillis) {
+        this.meanThinkTimeMillis = Math.max(0, meanThinkTimeMillis);
+        return this;
+    }
+
+    public SimulationConfig duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    // Same seed = same popularity ranking and the same sequence of baskets per shopper
+    public SimulationConfig seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public int getShoppers() { return shoppers; }
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public int getLanes() { return lanes; }
+    public double getPopularitySkew() { return popularitySkew; }
+    public int getMeanBasketSize() { return meanBasketSize; }
+    public int getMaxBasketSize() { return maxBasketSize; }
+    public int getMaxQuantityPerLine() { return maxQuantityPerLine; }
+    public long getMeanThinkTimeMillis() { return meanThinkTimeMillis; }
+    public Duration getDuration() { return duration; }
+    public long getSeed() { return seed; }
+
+    @Override
+    public String toString() {
+        return String.format("shoppers=%d (%s threads) lanes=%d skew=%.2f basket=~%d (max %d) thinkTime=~%dms duration=%ds",
+                shoppers, virtualThreads ? "virtual" : "platform", lanes, popularitySkew,
+                meanBasketSize, maxBasketSize, meanThinkTimeMillis, duration.toSeconds());
+    }
+}
@@ -1,11 +1,27 @@
 package org.example.service;
 
 import org.example.db.Database;
+import org.example.jfr.StockMovementEvent;
+import org.example.metrics.Counter;
+import org.example.metrics.Metrics;
+import org.example.metrics.Timer;
+import org.example.model.Delivery;
 
 import java.sql.*;
 
 public class StockManagerService {
 
+    private static final Timer ADD_PRODUCT = Metrics.timer("stock.addProduct");
+    private static final Timer STOCK_IN = Metrics.timer("stock.in");
+    private static final Timer STOCK_OUT = Metrics.timer("stock.out");
+    private static final Timer CHECK_STOCK = Metrics.timer("stock.check");
+    private static final Counter UNITS_IN = Metrics.counter("stock.units.in");
+    private static final Counter UNITS_OUT = Metrics.counter("stock.units.out");
+
+    private static final int SEARCH_PAGE_SIZE = 20;
+
+    private final ProductSearch productSearch = new ProductSearch();
+
     // ============ 1) ADD PRODUCT ============
 
     // Adds the product, and if initialStockQty > 0 it also logs a stock_movements 'IN'
@@ -17,10 +33,17 @@ public class StockManagerService {
                            double sellingPrice,
                            int initialStockQty,
                            int userId) {
+        long t = ADD_PRODUCT.start();
+        boolean ok = insertProduct(name, barcode, categoryId, supplierId, purchasePrice, sellingPrice, initialStockQty, userId);
+        ADD_PRODUCT.stop(t, ok);
+    }
+
+    private boolean insertProduct(String name, String barcode, int categoryId, int supplierId,
+                                  double purchasePrice, double sellingPrice, int initialStockQty, int userId) {
 
         if (initialStockQty < 0) {
             System.out.println("❌ Initial stock quantity cannot be negative.");
-            return;
+            return false;
         }
 
         Connection conn = null;
@@ -37,7 +60,7 @@ public class StockManagerService {
         """;
 
         try {
-            conn = Database.getConnection();
+            conn = Database.getWriteConnection();
             conn.setAutoCommit(false);
 
             int newProductId;
@@ -70,7 +93,10 @@ public class StockManagerService {
             }
 
             conn.commit();
+            ProductCatalog.shared().invalidateCategory(categoryId);
+            BarcodeIndex.shared().put(barcode, newProductId);
             System.out.println("✅ Product added (id=" + newProductId + ").");
+            return true;
 
         } catch (Exception e) {
             try {
@@ -84,16 +110,26 @@ public class StockManagerService {
             } catch (Exception ignored) {
             }
         }
+        return false;
     }
 
     // ============ 2) STOCK IN ============
 
     public void stockIn(int productId, int qty, int userId) {
+        long t = STOCK_IN.start();
+        boolean ok = applyStockIn(productId, qty, userId);
+        STOCK_IN.stop(t, ok);
+        if (ok) UNITS_IN.add(qty);
+    }
+
+    private boolean applyStockIn(int productId, int qty, int userId) {
         if (qty <= 0) {
             System.out.println("❌ Quantity must be > 0");
-            return;
+            return false;
         }
 
+        StockMovementEvent event = movementEvent(productId, userId, "IN", qty);
+
         Connection conn = null;
 
         String updateProduct = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
@@ -103,7 +139,7 @@ public class StockManagerService {
         """;
 
         try {
-            conn = Database.getConnection();
+            conn = Database.getWriteConnection();
             conn.setAutoCommit(false);
 
             try (PreparedStatement ps1 = conn.prepareStatement(updateProduct)) {
@@ -122,63 +158,82 @@ public class StockManagerService {
                 ps2.executeUpdate();
             }
 
+            long committing = System.nanoTime();
             conn.commit();
+            event.commitTime = System.nanoTime() - committing;
+            ProductCatalog.shared().invalidate(productId);
             System.out.println("✅ Stock IN done.");
+            event.success = true;
+            return true;
 
         } catch (Exception e) {
             try {
                 if (conn != null) conn.rollback();
             } catch (Exception ignored) {
             }
+            event.failure = e.getMessage();
             System.out.println("❌ Stock IN failed: " + e.getMessage());
         } finally {
             try {
                 if (conn != null) conn.close();
             } catch (Exception ignored) {
             }
+            event.commit();
         }
+        return false;
     }
 
     // ============ 3) STOCK OUT ============
 
     public void stockOut(int productId, int qty, int userId) {
+        long t = STOCK_OUT.start();
+        boolean ok = applyStockOut(productId, qty, userId);
+        STOCK_OUT.stop(t, ok);
+        if (ok) UNITS_OUT.add(qty);
+    }
+
+    private boolean applyStockOut(int productId, int qty, int userId) {
         if (qty <= 0) {
             System.out.println("❌ Quantity must be > 0");
-            return;
+            return false;
         }
 
+        StockMovementEvent event = movementEvent(productId, userId, "OUT", qty);
+
         Connection conn = null;
 
         String selectQty = "SELECT stock_quantity FROM products WHERE id = ?";
-        String updateProduct = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ?";
+        // Conditional decrement: check and update in one statement, so two lanes can't both
+        // pass a "stock >= qty" check and then drive the stock negative
+        String updateProduct = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
         String insertMovement = """
             INSERT INTO stock_movements (product_id, user_id, movement_type, quantity, created_at)
             VALUES (?, ?, 'OUT', ?, CURRENT_TIMESTAMP)
         """;
 
+        long start = System.nanoTime();
+        ProductLocks.Held held = ProductLocks.shared().lock(productId);
         try {
-            conn = Database.getConnection();
+            event.lockWait = System.nanoTime() - start;
+            conn = Database.getWriteConnection();
             conn.setAutoCommit(false);
 
-            int currentQty;
-            try (PreparedStatement ps0 = conn.prepareStatement(selectQty)) {
-                ps0.setInt(1, productId);
-                try (ResultSet rs = ps0.executeQuery()) {
-                    if (!rs.next()) {
-                        throw new RuntimeException("Product not found (id=" + productId + ")");
-                    }
-                    currentQty = rs.getInt("stock_quantity");
-                }
-            }
-
-            if (currentQty < qty) {
-                throw new RuntimeException("Not enough stock. Current=" + currentQty + ", requested=" + qty);
-            }
-
             try (PreparedStatement ps1 = conn.prepareStatement(updateProduct)) {
                 ps1.setInt(1, qty);
                 ps1.setInt(2, productId);
-                ps1.executeUpdate();
+                ps1.setInt(3, qty);
+                if (ps1.executeUpdate() == 0) {
+                    // Nothing changed: find out why, for the error message
+                    try (PreparedStatement ps0 = conn.prepareStatement(selectQty)) {
+                        ps0.setInt(1, productId);
+                        try (ResultSet rs = ps0.executeQuery()) {
+                            if (!rs.next()) {
+                                throw new RuntimeException("Product not found (id=" + productId + ")");
+                            }
+                            throw new RuntimeException("Not enough stock. Current=" + rs.getInt("stock_quantity") + ", requested=" + qty);
+                        }
+                    }
+                }
             }
 
             try (PreparedStatement ps2 = conn.prepareStatement(insertMovement)) {
@@ -188,27 +243,102 @@ public class StockManagerService {
                 ps2.executeUpdate();
             }
 
+            long committing = System.nanoTime();
             conn.commit();
+            event.commitTime = System.nanoTime() - committing;
+            ProductCatalog.shared().invalidate(productId);
             System.out.println("✅ Stock OUT done.");
+            event.success = true;
+            return true;
 
         } catch (Exception e) {
             try {
                 if (conn != null) conn.rollback();
             } catch (Exception ignored) {
             }
+            event.failure = e.getMessage();
             System.out.println("❌ Stock OUT failed: " + e.getMessage());
         } finally {
             try {
                 if (conn != null) conn.close();
             } catch (Exception ignored) {
             }
+            held.close();
+            event.commit();
+        }
+        return false;
+    }
+
+    // ============ 4) BULK IMPORT ============
+
+    // Loads a CSV of products (see ProductImporter for the format) in large transactions;
+    // bad rows are listed and skipped, the rest of the file still goes in
+    public void importProducts(String csvPath, boolean createMissing, int userId) {
+        try {
+            ProductImporter.Report report = new ProductImporter(ProductImporter.DEFAULT_BATCH_SIZE, createMissing)
+                    .importCsv(java.nio.file.Path.of(csvPath.trim()), userId);
+
+            System.out.println((report.rejected() == 0 ? "✅ " : "⚠️ ") + "Import done: " + report);
+            report.errors().stream().limit(20).forEach(err -> System.out.println("   ❌ " + err));
+            if (report.rejected() > 20) System.out.println("   ... and " + (report.rejected() - 20) + " more rejected rows");
+
+        } catch (Exception e) {
+            System.out.println("❌ Import failed: " + e.getMessage());
+        }
+    }
+
+    // ============ 5) GOODS RECEIVING ============
+
+    // Books a whole delivery in one transaction (see GoodsReceiving); bad lines are listed and skipped
+    public void receiveDelivery(Delivery delivery, int userId) {
+        if (delivery.isEmpty()) {
+            System.out.println("⚠️ Delivery " + delivery.reference() + " has no lines.");
+            return;
+        }
+        try {
+            GoodsReceiving.Report report = new GoodsReceiving().receive(delivery, userId);
+
+            System.out.println((report.rejected() == 0 ? "✅ " : "⚠️ ") + "Received " + report);
+            report.rejectedLines().forEach(line -> System.out.println("   ❌ " + line));
+
+        } catch (GoodsReceiving.DuplicateDeliveryException e) {
+            System.out.println("❌ " + e.getMessage());
+        } catch (Exception e) {
+            System.out.println("❌ Receiving failed: " + e.getMessage());
+        }
+    }
+
+    // ============ 6) LEDGER RECONCILIATION ============
+
+    // Compares every product's stock with what its stock_movements add up to
+    public void reconcileStock() {
+        try {
+            StockReconciliation.Report report = new StockReconciliation().run();
+
+            System.out.println((report.balanced() ? "✅ " : "⚠️ ") + "Reconciliation: " + report);
+            report.mismatches().stream().limit(50).forEach(m -> System.out.println("   ❌ " + m));
+            if (report.mismatches().size() > 50) System.out.println("   ... and " + (report.mismatches().size() - 50) + " more");
+
+        } catch (Exception e) {
+            System.out.println("❌ Reconciliation failed: " + e.getMessage());
         }
     }
 
+    // JFR event for one movement, started now (committed by the caller when done)
+    private static StockMovementEvent movementEvent(int productId, int userId, String type, int qty) {
+        StockMovementEvent event = new StockMovementEvent();
+        event.begin();
+        event.productId = productId;
+        event.userId = userId;
+        event.movementType = type;
+        event.quantity = qty;
+        return event;
+    }
+
     public void listCategories() {
         String sql = "SELECT id, name FROM categories ORDER BY id";
 
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
@@ -233,7 +363,7 @@ public class StockManagerService {
     public void listSuppliers() {
         String sql = "SELECT id, name FROM suppliers ORDER BY id";
 
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
@@ -251,10 +381,31 @@ public class StockManagerService {
             System.out.println("❌ Failed to list suppliers: " + e.getMessage());
         }
     }
+
     public void checkStock(String query) {
+        checkStock(query, 0);
+    }
+
+    // Looks a product up by id, or searches names/barcodes one page at a time (page is 0-based).
+    // Returns true if the name search has another page.
+    public boolean checkStock(String query, int page) {
+        long t = CHECK_STOCK.start();
+        Lookup result = Lookup.FAILED;
+        try {
+            result = lookUpStock(query, page);
+            return result == Lookup.MORE;
+        } finally {
+            CHECK_STOCK.stop(t, result != Lookup.FAILED);
+        }
+    }
+
+    // FAILED: bad input, product not found or query error; MORE: the name search has another page
+    private enum Lookup { FAILED, DONE, MORE }
+
+    private Lookup lookUpStock(String query, int page) {
         if (query == null || query.trim().isEmpty()) {
             System.out.println("❌ Please enter an id or a name.");
-            return;
+            return Lookup.FAILED;
         }
 
         query = query.trim();
@@ -264,7 +415,7 @@ public class StockManagerService {
             int id = Integer.parseInt(query);
 
             String sql = "SELECT id, name, stock_quantity FROM products WHERE id = ?";
-            try (Connection conn = Database.getConnection();
+            try (Connection conn = Database.getReadConnection();
                  PreparedStatement ps = conn.prepareStatement(sql)) {
 
                 ps.setInt(1, id);
@@ -272,45 +423,37 @@ public class StockManagerService {
                 try (ResultSet rs = ps.executeQuery()) {
                     if (!rs.next()) {
                         System.out.println("❌ Product not found (id=" + id + ")");
-                        return;
+                        return Lookup.FAILED;
                     }
                     System.out.println("✅ " + rs.getInt("id") + " - " + rs.getString("name")
                             + " | Stock: " + rs.getInt("stock_quantity"));
                 }
             }
 
-            return; // done
+            return Lookup.DONE;
 
         } catch (NumberFormatException ignored) {
             // not a number -> search by name
         } catch (Exception e) {
             System.out.println("❌ Failed to check stock by id: " + e.getMessage());
-            return;
+            return Lookup.FAILED;
         }
 
-        // 2) Search by name (partial match)
-        String sql = "SELECT id, name, stock_quantity FROM products WHERE name LIKE ? ORDER BY id";
-
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, "%" + query + "%"); // LIKE pattern
-
-            try (ResultSet rs = ps.executeQuery()) {
-                boolean found = false;
-
-                System.out.println("\n--- Matching products ---");
-                while (rs.next()) {
-                    found = true;
-                    System.out.println(rs.getInt("id") + " - " + rs.getString("name")
-                            + " | Stock: " + rs.getInt("stock_quantity"));
-                }
+        // 2) Search by name (word prefixes, best matches first) through the full-text index
+        try {
+            ProductSearch.Page result = productSearch.search(query, page, SEARCH_PAGE_SIZE);
 
-                if (!found) System.out.println("(No products matched)");
+            System.out.println("\n--- Matching products (page " + (page + 1) + ") ---");
+            for (org.example.model.Product p : result.items()) {
+                System.out.println(p.getId() + " - " + p.getName() + " | Stock: " + p.getStockQuantity());
             }
 
+            if (result.items().isEmpty()) System.out.println("(No products matched)");
+            return result.hasMore() ? Lookup.MORE : Lookup.DONE;
+
         } catch (Exception e) {
             System.out.println("❌ Failed to check stock by name: " + e.getMessage());
+            return Lookup.FAILED;
         }
     }
 
@@ -0,0 +1,166 @@
+package org.example.service;
+
+import org.example.db.Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Audits products.stock_quantity against the stock ledger (stock_movements):
+// expected stock = IN - OUT + ADJUSTMENT (adjustments are signed), per product.
+// The product id range is split in halves (fork/join) down to ranges of LEAF_SIZE ids,
+// each checked by one grouped query on its own read connection; the mismatches of the
+// halves are joined on the way back up. parallelism = how many leaves query at once.
+// Each leaf reads its own snapshot: a sale committed mid-run can show up as a transient
+// mismatch, so run it when the store is quiet (or re-check what it reports).
+public class StockReconciliation {
+
+    public static final int LEAF_SIZE = 2_048;
+
+    public record Mismatch(int productId, String name, long stock, long ledger) {
+        public long difference() {
+            return stock - ledger;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("#%d %s: stock %d, ledger %d (%+d)", productId, name, stock, ledger, difference());
+        }
+    }
+
+    public record Report(long productsChecked, List<Mismatch> mismatches, int parallelism, long elapsedNanos) {
+        public boolean balanced() {
+            return mismatches.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d products checked, %d mismatches in %.1fs (parallelism %d)",
+                    productsChecked, mismatches.size(), elapsedNanos / 1e9, parallelism);
+        }
+    }
+
+    // What one range of product ids found
+    private record Result(long checked, List<Mismatch> mismatches) {
+        static Result merge(Result a, Result b) {
+            if (b.mismatches.isEmpty()) return new Result(a.checked + b.checked, a.mismatches);
+            if (a.mismatches.isEmpty()) return new Result(a.checked + b.checked, b.mismatches);
+            List<Mismatch> all = new ArrayList<>(a.mismatches.size() + b.mismatches.size());
+            all.addAll(a.mismatches); // left half first: mismatches stay in product id order
+            all.addAll(b.mismatches);
+            return new Result(a.checked + b.checked, all);
+        }
+    }
+
+    private final int parallelism;
+
+    public StockReconciliation() {
+        this(Database.config().getPoolSize()); // one leaf per read connection
+    }
+
+    public StockReconciliation(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+        this.parallelism = parallelism;
+    }
+
+    public Report run() throws SQLException {
+        long start = System.nanoTime();
+
+        int minId;
+        int maxId;
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT MIN(id), MAX(id) FROM products");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            minId = rs.getInt(1);
+            maxId = rs.getInt(2);
+            if (rs.wasNull()) return new Report(0, List.of(), parallelism, System.nanoTime() - start);
+        }
+
+        // Own pool: the leaves block on JDBC, which must not tie up the common pool
+        Result result;
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            result = pool.invoke(new RangeCheck(minId, maxId));
+        } catch (RangeFailure e) {
+            // may be a copy made by the pool for this thread: find the leaf's SQLException
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof SQLException sql) throw sql;
+            }
+            throw e;
+        }
+        return new Report(result.checked(), result.mismatches(), parallelism, System.nanoTime() - start);
+    }
+
+    private static final class RangeCheck extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final int firstId;
+        private final int lastId;
+
+        RangeCheck(int firstId, int lastId) {
+            this.firstId = firstId;
+            this.lastId = lastId;
+        }
+
+        @Override
+        protected Result compute() {
+            if ((long) lastId - firstId < LEAF_SIZE) {
+                try {
+                    return check(firstId, lastId);
+                } catch (SQLException e) {
+                    throw new RangeFailure(e);
+                }
+            }
+            int mid = (int) (((long) firstId + lastId) >>> 1);
+            RangeCheck left = new RangeCheck(firstId, mid);
+            RangeCheck right = new RangeCheck(mid + 1, lastId);
+            left.fork();
+            Result rightResult = right.compute();
+            return Result.merge(left.join(), rightResult);
+        }
+    }
+
+    // One grouped query per leaf: the ledger sum rides the (product_id, created_at) index
+    private static Result check(int firstId, int lastId) throws SQLException {
+        String sql = """
+            SELECT p.id, p.name, COALESCE(p.stock_quantity, 0) AS stock,
+                   COALESCE(SUM(CASE m.movement_type
+                                    WHEN 'IN' THEN m.quantity
+                                    WHEN 'OUT' THEN -m.quantity
+                                    ELSE m.quantity END), 0) AS ledger
+            FROM products p LEFT JOIN stock_movements m ON m.product_id = p.id
+            WHERE p.id BETWEEN ? AND ?
+            GROUP BY p.id
+        """;
+        long checked = 0;
+        List<Mismatch> mismatches = new ArrayList<>();
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, firstId);
+            ps.setInt(2, lastId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    checked++;
+                    long stock = rs.getLong("stock");
+                    long ledger = rs.getLong("ledger");
+                    if (stock != ledger) mismatches.add(new Mismatch(rs.getInt("id"), rs.getString("name"), stock, ledger));
+                }
+            }
+        }
+        return new Result(checked, mismatches);
+    }
+
+    // Carries a leaf's SQLException out of the pool
+    private static final class RangeFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RangeFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -1,70 +1,216 @@
 package org.example.service;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import org.example.db.Database;
+import org.example.metrics.LatencyHistogram;
+import org.example.model.Cart;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
 
+// Load generator for the checkout path.
+// N shoppers (virtual or platform threads) loop until the run ends: shop for a while (think
+// time), fill a basket from the real catalog with a Zipf-skewed popularity, queue for one of
+// the checkout lanes and pay. Every checkout is timed from joining the queue to the invoice
+// being committed (or refused) and recorded in a LatencyHistogram.
 public class StoreSimulation {
 
-    // SEMAPHORE: Only 1 robot can be at the checkout counter at a time.
-    private static final Semaphore checkoutQueue = new Semaphore(1);
+    public record Report(SimulationConfig config, long elapsedNanos, long completed, long rejected,
+                         LatencyHistogram checkout, LatencyHistogram laneWait) {
 
-    // Robot Names for fun
-    private static final String[] BOT_NAMES = {"🤖 T-800", "🤖 R2-D2", "🤖 Wall-E", "🤖 Optimus", "🤖 Megatron"};
+        public double throughputPerSecond() {
+            return elapsedNanos == 0 ? 0 : completed * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("""
+                    sales: %d completed, %d rejected in %.1fs -> %.1f sales/s
+                    checkout latency: %s
+                    lane wait:        %s""",
+                    completed, rejected, elapsedNanos / 1e9, throughputPerSecond(),
+                    checkout.summary(), laneWait.summary());
+        }
+    }
 
     public static void startSimulation(int cashierId, CashierService cashierService) {
-        System.out.println("\n=== ⚡ STARTING CHAOS MODE (Random Shopping) ⚡ ===");
+        startSimulation(cashierId, cashierService, SimulationConfig.fromSystemProperties());
+    }
+
+    // Runs for config.getDuration() and blocks until every shopper is done; null if it couldn't start
+    public static Report startSimulation(int cashierId, CashierService cashierService, SimulationConfig config) {
+        if (!cashierService.hasActiveShift()) {
+            System.out.println("⚠️ You must START SHIFT before running the simulation!");
+            return null;
+        }
 
-        // We launch 5 Threads (one for each bot name)
-        for (String botName : BOT_NAMES) {
+        Popularity popularity;
+        try {
+            popularity = Popularity.load(config.getPopularitySkew(), new SplittableRandom(config.getSeed()));
+        } catch (SQLException e) {
+            System.out.println("❌ Failed to load products for the simulation: " + e.getMessage());
+            return null;
+        }
+        if (popularity == null) {
+            System.out.println("❌ No product in stock: nothing to sell.");
+            return null;
+        }
 
-            Thread t = new Thread(() -> {
+        System.out.println("\n=== ⚡ STARTING LOAD SIMULATION ⚡ ===");
+        System.out.println("   " + config + " products=" + popularity.size());
+
+        Semaphore lanes = new Semaphore(config.getLanes(), true); // first come, first served
+        LatencyHistogram checkout = new LatencyHistogram();
+        LatencyHistogram laneWait = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder rejected = new LongAdder();
+
+        long start = System.nanoTime();
+        long deadline = start + config.getDuration().toNanos();
+        Thread.Builder builder = config.isVirtualThreads()
+                ? Thread.ofVirtual().name("shopper-", 1)
+                : Thread.ofPlatform().daemon().name("shopper-", 1);
+
+        SplittableRandom seeds = new SplittableRandom(config.getSeed() + 1);
+        List<Thread> shoppers = new ArrayList<>(config.getShoppers());
+        for (int i = 0; i < config.getShoppers(); i++) {
+            SplittableRandom rand = seeds.split();
+            shoppers.add(builder.start(() -> {
+                Cart cart = new Cart(config.getMaxBasketSize());
                 try {
-                    // 1. Simulate "Shopping Time" (Random sleep 0-2 seconds)
-                    Random rand = new Random();
-                    System.out.println(botName + " is browsing the aisles...");
-                    Thread.sleep(rand.nextInt(2000));
-
-                    // 2. Build a Random Cart
-                    // They pick 1 to 3 different products
-                    Map<Integer, Integer> cart = new HashMap<>();
-                    int numberOfItems = rand.nextInt(3) + 1;
-
-                    for (int j = 0; j < numberOfItems; j++) {
-                        // Random Product ID between 1 and 5 (Milk, Bread, etc.)
-                        int prodId = rand.nextInt(5) + 1;
-                        // Random Quantity between 1 and 4
-                        int qty = rand.nextInt(4) + 1;
-
-                        cart.put(prodId, qty);
+                    while (System.nanoTime() < deadline) {
+                        // 1. Shopping time
+                        long think = thinkTimeMillis(rand, config.getMeanThinkTimeMillis());
+                        if (think > 0) Thread.sleep(Math.min(think, Math.max(1, (deadline - System.nanoTime()) / 1_000_000)));
+                        if (System.nanoTime() >= deadline) break;
+
+                        // 2. Fill the basket
+                        fillBasket(cart, rand, popularity, config);
+
+                        // 3. Queue for a lane and pay (enough cash for any basket, guest customer).
+                        //    Quiet: no receipt or per-sale line, so the latency is checkout's, not the console's
+                        long queued = System.nanoTime();
+                        lanes.acquire();
+                        long served = System.nanoTime();
+                        boolean success;
+                        try {
+                            success = cashierService.processTransaction(cashierId, 0, cart, 1_000_000_000.0, true);
+                        } finally {
+                            lanes.release();
+                        }
+                        long done = System.nanoTime();
+
+                        laneWait.recordNanos(served - queued);
+                        checkout.recordNanos(done - queued);
+                        if (success) completed.increment();
+                        else rejected.increment();
+                        cart.clear();
                     }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    System.out.println("❌ Shopper " + Thread.currentThread().getName() + " crashed: " + e.getMessage());
+                }
+            }));
+        }
 
-                    // 3. Get in line (Acquire Lock)
-                    System.out.println(botName + " is getting in line...");
-                    checkoutQueue.acquire();
+        for (Thread t : shoppers) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                shoppers.forEach(Thread::interrupt);
+                break;
+            }
+        }
 
-                    System.out.println("🔹 " + botName + " reached the counter.");
+        Report report = new Report(config, System.nanoTime() - start, completed.sum(), rejected.sum(), checkout, laneWait);
+        System.out.println("\n=== 📊 SIMULATION REPORT ===");
+        System.out.println(report);
+        return report;
+    }
 
-                    // 4. Pay (We give them $5000 cash so they always have enough)
-                    // We use Customer ID 0 (Guest)
-                    boolean success = cashierService.processTransaction(cashierId, 0, cart, 5000.0);
+    // ---- workload ----
 
-                    if (success) {
-                        System.out.println("😃 " + botName + " leaves happy with groceries.");
-                    } else {
-                        System.out.println("😡 " + botName + " leaves angry (Issue at checkout).");
-                    }
+    private static void fillBasket(Cart cart, SplittableRandom rand, Popularity popularity, SimulationConfig config) {
+        int lines = Math.min(basketSize(rand, config.getMeanBasketSize()),
+                Math.min(config.getMaxBasketSize(), popularity.size()));
+        // Popular products come up again and again: give up after a few repeats rather than loop
+        for (int attempts = 0; cart.size() < lines && attempts < lines * 4; attempts++) {
+            int productId = popularity.sample(rand);
+            if (!cart.contains(productId)) cart.add(productId, 1 + rand.nextInt(config.getMaxQuantityPerLine()));
+        }
+    }
 
-                } catch (Exception e) {
-                    e.printStackTrace();
-                } finally {
-                    // 5. Leave the counter (Release Lock) so the next robot enters
-                    checkoutQueue.release();
+    // Geometric with the given mean (>= 1): many small baskets, a few big trolleys
+    private static int basketSize(SplittableRandom rand, int mean) {
+        if (mean <= 1) return 1;
+        double p = 1.0 / mean;
+        return 1 + (int) (Math.log(1 - rand.nextDouble()) / Math.log(1 - p));
+    }
+
+    // Exponential: arrivals of a Poisson process
+    private static long thinkTimeMillis(SplittableRandom rand, long mean) {
+        if (mean <= 0) return 0;
+        return (long) (-Math.log(1 - rand.nextDouble()) * mean);
+    }
+
+    // Zipf distribution over the products in stock: rank k is picked with weight 1/k^skew.
+    // Ranks are shuffled (seeded) so best-sellers aren't simply the oldest product ids.
+    private static final class Popularity {
+        private final int[] productIds;
+        private final double[] cdf;
+
+        private Popularity(int[] productIds, double skew) {
+            this.productIds = productIds;
+            this.cdf = new double[productIds.length];
+            double total = 0;
+            for (int k = 0; k < productIds.length; k++) {
+                total += 1.0 / Math.pow(k + 1, skew);
+                cdf[k] = total;
+            }
+            for (int k = 0; k < cdf.length; k++) cdf[k] /= total;
+        }
+
+        static Popularity load(double skew, SplittableRandom rand) throws SQLException {
+            int[] ids = new int[256];
+            int n = 0;
+            String sql = "SELECT id FROM products WHERE stock_quantity > 0 ORDER BY id";
+            try (Connection conn = Database.getReadConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+                    ids[n++] = rs.getInt(1);
                 }
-            });
+            }
+            if (n == 0) return null;
+
+            ids = Arrays.copyOf(ids, n);
+            for (int i = n - 1; i > 0; i--) { // Fisher-Yates
+                int j = rand.nextInt(i + 1);
+                int tmp = ids[i];
+                ids[i] = ids[j];
+                ids[j] = tmp;
+            }
+            return new Popularity(ids, skew);
+        }
+
+        int size() {
+            return productIds.length;
+        }
 
-            t.start();
+        int sample(SplittableRandom rand) {
+            int k = Arrays.binarySearch(cdf, rand.nextDouble());
+            if (k < 0) k = -k - 1;
+            return productIds[Math.min(k, productIds.length - 1)];
         }
     }
-}
\ No newline at end of file
+}
@@ -6,15 +6,39 @@ import org.example.model.Supplier;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 public class SupplierService {
 
-    // Add new supplier using Thread (async operation)
+    // Shared by every SupplierService in the JVM; loaded on first use, kept current by addSupplierAsync
+    private static final SharedNgramIndex<Supplier> INDEX =
+            new SharedNgramIndex<>("suppliers", Supplier::getName, SupplierService::loadSuppliers);
+
+    // Run the *Async methods (blocking JDBC work): never the common ForkJoinPool.
+    // Writes have their own executor, capped at the single writer connection.
+    private final Executor executor;
+    private final Executor writeExecutor;
+
+    public SupplierService() {
+        this(ServiceExecutors.database(), ServiceExecutors.databaseWrites());
+    }
+
+    public SupplierService(Executor executor) {
+        this(executor, executor);
+    }
+
+    public SupplierService(Executor executor, Executor writeExecutor) {
+        this.executor = executor;
+        this.writeExecutor = writeExecutor;
+    }
+
+    // Add new supplier on the write executor (async operation)
     public CompletableFuture<Boolean> addSupplierAsync(String name, String phone, String email) {
         return CompletableFuture.supplyAsync(() -> {
             if (name == null || name.trim().isEmpty()) {
@@ -24,7 +48,9 @@ public class SupplierService {
 
             String sql = "INSERT INTO suppliers(name, phone, email) VALUES(?, ?, ?)";
 
-            try (Connection conn = Database.getConnection();
+            INDEX.beginWrite();
+            Supplier added = null;
+            try (Connection conn = Database.getWriteConnection();
                  PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
                 ps.setString(1, name.trim());
@@ -36,6 +62,9 @@ public class SupplierService {
                 try (ResultSet rs = ps.getGeneratedKeys()) {
                     if (rs.next()) {
                         int newId = rs.getInt(1);
+                        added = new Supplier(newId, name.trim(),
+                                phone != null && !phone.trim().isEmpty() ? phone.trim() : null,
+                                email != null && !email.trim().isEmpty() ? email.trim() : null);
                         System.out.println("✅ Supplier created successfully (ID: " + newId + ")");
                         return true;
                     }
@@ -44,9 +73,11 @@ public class SupplierService {
             } catch (Exception e) {
                 System.out.println("❌ Failed to create supplier: " + e.getMessage());
                 return false;
+            } finally {
+                INDEX.endWrite(added);
             }
             return false;
-        });
+        }, writeExecutor);
     }
 
     // Synchronous version
@@ -61,35 +92,37 @@ public class SupplierService {
 
     // Get all suppliers using Stream
     public List<Supplier> getAllSuppliers() {
-        List<Supplier> suppliers = new ArrayList<>();
-        String sql = "SELECT id, name, phone, email FROM suppliers ORDER BY name";
-
-        try (Connection conn = Database.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                suppliers.add(new Supplier(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("phone"),
-                        rs.getString("email")
-                ));
-            }
-
+        try {
+            return loadSuppliers();
         } catch (Exception e) {
             System.out.println("❌ Failed to load suppliers: " + e.getMessage());
+            return new ArrayList<>();
         }
+    }
 
-        return suppliers;
+    public CompletableFuture<List<Supplier>> getAllSuppliersAsync() {
+        return CompletableFuture.supplyAsync(this::getAllSuppliers, executor);
     }
 
-    // Filter suppliers by name using Stream and Filter
+    // Filter suppliers by name (substring, ignoring case) from the in-memory index
     public List<Supplier> filterSuppliersByName(String searchTerm) {
-        return getAllSuppliers().stream()
-                .filter(supplier ->
-                        supplier.getName().toLowerCase().contains(searchTerm.toLowerCase()))
-                .collect(Collectors.toList());
+        NgramIndex<Supplier> idx = INDEX.get();
+        return idx != null ? idx.search(searchTerm) : new ArrayList<>();
+    }
+
+    // The first call may load the index from the database, hence the async variants
+    public CompletableFuture<List<Supplier>> filterSuppliersByNameAsync(String searchTerm) {
+        return CompletableFuture.supplyAsync(() -> filterSuppliersByName(searchTerm), executor);
+    }
+
+    public CompletableFuture<Boolean> supplierExistsAsync(String name) {
+        return CompletableFuture.supplyAsync(() -> supplierExists(name), executor);
+    }
+
+    // Check if a supplier with this name exists (case-insensitive) without going to the database
+    public boolean supplierExists(String name) {
+        NgramIndex<Supplier> idx = INDEX.get();
+        return idx != null && idx.containsName(name);
     }
 
     // Filter suppliers with email using Stream and Filter
@@ -99,10 +132,45 @@ public class SupplierService {
                 .collect(Collectors.toList());
     }
 
+    public CompletableFuture<List<Supplier>> filterSuppliersWithEmailAsync() {
+        return CompletableFuture.supplyAsync(this::filterSuppliersWithEmail, executor);
+    }
+
     // Filter suppliers with phone using Stream and Filter
     public List<Supplier> filterSuppliersWithPhone() {
         return getAllSuppliers().stream()
                 .filter(supplier -> supplier.getPhone() != null && !supplier.getPhone().isEmpty())
                 .collect(Collectors.toList());
     }
+
+    public CompletableFuture<List<Supplier>> filterSuppliersWithPhoneAsync() {
+        return CompletableFuture.supplyAsync(this::filterSuppliersWithPhone, executor);
+    }
+
+    // Forget the index (e.g. suppliers were changed outside this JVM); the next query reloads it
+    public static void invalidateIndex() {
+        INDEX.invalidate();
+    }
+
+    // ---- internals ----
+
+    private static List<Supplier> loadSuppliers() throws SQLException {
+        List<Supplier> suppliers = new ArrayList<>();
+        String sql = "SELECT id, name, phone, email FROM suppliers ORDER BY name";
+
+        try (Connection conn = Database.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                suppliers.add(new Supplier(
+                        rs.getInt("id"),
+                        rs.getString("name"),
+                        rs.getString("phone"),
+                        rs.getString("email")
+                ));
+            }
+        }
+        return suppliers;
+    }
 }
\ No newline at end of file
@@ -14,7 +14,7 @@ public class UserService {
     public void createUser(String username, String password, String role) {
         String sql = "INSERT INTO users(username, password, role) VALUES(?,?,?)";
 
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, username);
@@ -33,7 +33,7 @@ public class UserService {
         List<User> users = new ArrayList<>();
         String sql = "SELECT id, username, role FROM users";
 
-        try (Connection conn = Database.getConnection();
+        try (Connection conn = Database.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
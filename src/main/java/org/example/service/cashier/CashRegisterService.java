@@ -1,28 +1,49 @@
 package org.example.service.cashier;
 
 import org.example.db.Database;
+import org.example.jfr.ShiftEvent;
+import org.example.metrics.Metrics;
+import org.example.metrics.Timer;
+
 import java.sql.*;
 
 public class CashRegisterService {
 
+    private static final Timer START_SHIFT = Metrics.timer("shift.start");
+    private static final Timer END_SHIFT = Metrics.timer("shift.end");
+    private static final Timer X_REPORT = Metrics.timer("shift.xReport");
+
     // This remembers your specific Shift ID while the app is running
-    private int currentShiftId = -1;
+    // (volatile: the simulation's shoppers read it from their own threads)
+    private volatile int currentShiftId = -1;
 
     // Helper to check if we are working
     public boolean hasActiveShift() {
         return currentShiftId != -1;
     }
 
+    // The open shift's cash_register id, or -1
+    public int getCurrentShiftId() {
+        return currentShiftId;
+    }
+
     // 1. START SHIFT (Put money in drawer)
     public void startShift(int cashierId, double openingBalance) {
+        long t = START_SHIFT.start();
+        START_SHIFT.stop(t, openShift(cashierId, openingBalance));
+    }
+
+    private boolean openShift(int cashierId, double openingBalance) {
         if (hasActiveShift()) {
             System.out.println("⚠️ You already have an open shift!");
-            return;
+            return false;
         }
 
         String sql = "INSERT INTO cash_register (cashier_id, opening_balance) VALUES (?, ?)";
 
-        try (Connection conn = Database.getConnection();
+        ShiftEvent event = shiftEvent("OPEN", cashierId);
+        event.openingBalance = openingBalance;
+        try (Connection conn = Database.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             ps.setInt(1, cashierId);
@@ -33,68 +54,129 @@ public class CashRegisterService {
                 if (rs.next()) {
                     currentShiftId = rs.getInt(1);
                     System.out.println("✅ Shift STARTED. Drawer contains: $" + openingBalance);
+                    event.shiftId = currentShiftId;
+                    event.success = true;
+                    return true;
                 }
             }
 
         } catch (SQLException e) {
             System.out.println("❌ Error starting shift: " + e.getMessage());
+        } finally {
+            event.commit();
         }
+        return false;
     }
 
     // 2. END SHIFT (Count the money)
     public void endShift(int cashierId) {
+        long t = END_SHIFT.start();
+        END_SHIFT.stop(t, closeShift(cashierId));
+    }
+
+    private boolean closeShift(int cashierId) {
         if (!hasActiveShift()) {
             System.out.println("⚠️ No active shift found.");
-            return;
+            return false;
         }
 
-        // We calculate total sales by summing invoices created SINCE this shift opened
-        String sumSql = """
-            SELECT SUM(total_amount) FROM invoices 
-            WHERE cashier_id = ? 
-            AND created_at >= (SELECT opened_at FROM cash_register WHERE id = ?)
-        """;
-
+        // Totals were accumulated by every sale of this shift: no need to re-sum the invoices
         String closeSql = "UPDATE cash_register SET closing_balance = ?, closed_at = CURRENT_TIMESTAMP WHERE id = ?";
 
-        try (Connection conn = Database.getConnection()) {
-            double totalSales = 0;
-            double openingBalance = 0;
-
-            // 1. Get Opening Balance (What we started with)
-            try (PreparedStatement ps = conn.prepareStatement("SELECT opening_balance FROM cash_register WHERE id = ?")) {
-                ps.setInt(1, currentShiftId);
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) openingBalance = rs.getDouble(1);
-            }
+        ShiftEvent event = shiftEvent("CLOSE", cashierId);
+        event.shiftId = currentShiftId;
+        try (Connection conn = Database.getWriteConnection()) {
+            conn.setAutoCommit(false);
 
-            // 2. Get Total Sales (What we earned)
-            try (PreparedStatement ps = conn.prepareStatement(sumSql)) {
-                ps.setInt(1, cashierId);
-                ps.setInt(2, currentShiftId);
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) totalSales = rs.getDouble(1);
+            // 1. Read Opening Balance + Running Totals (one row, by primary key)
+            ShiftTotals totals = readTotals(conn, currentShiftId);
+            if (totals == null) {
+                System.out.println("❌ Shift #" + currentShiftId + " not found.");
+                return false;
             }
 
-            double finalTotal = openingBalance + totalSales;
+            double finalTotal = totals.openingBalance() + totals.salesTotal();
+            event.openingBalance = totals.openingBalance();
+            event.salesTotal = totals.salesTotal();
+            event.invoiceCount = totals.invoiceCount();
 
-            // 3. Save to DB
+            // 2. Save to DB
             try (PreparedStatement ps = conn.prepareStatement(closeSql)) {
                 ps.setDouble(1, finalTotal);
                 ps.setInt(2, currentShiftId);
                 ps.executeUpdate();
             }
+            conn.commit();
 
             System.out.println("\n=== 🏁 SHIFT ENDED ===");
-            System.out.println("   Opening Balance: " + openingBalance);
-            System.out.println("   Total Sales:     " + totalSales);
+            System.out.println("   Opening Balance: " + totals.openingBalance());
+            System.out.println("   Total Sales:     " + totals.salesTotal());
+            System.out.println("   Invoices:        " + totals.invoiceCount() + " (" + totals.itemCount() + " items)");
             System.out.println("   ---------------------------");
             System.out.println("   TOTAL IN DRAWER: " + finalTotal);
 
             currentShiftId = -1; // Reset so we can login again later
+            event.success = true;
+            return true;
 
         } catch (SQLException e) {
             System.out.println("❌ Error ending shift: " + e.getMessage());
+        } finally {
+            event.commit();
+        }
+        return false;
+    }
+
+    // 3. X REPORT (mid-shift totals, the shift stays open)
+    public void xReport() {
+        long t = X_REPORT.start();
+        X_REPORT.stop(t, printXReport());
+    }
+
+    private boolean printXReport() {
+        if (!hasActiveShift()) {
+            System.out.println("⚠️ No active shift found.");
+            return false;
+        }
+
+        try (Connection conn = Database.getReadConnection()) {
+            ShiftTotals totals = readTotals(conn, currentShiftId);
+            if (totals == null) {
+                System.out.println("❌ Shift #" + currentShiftId + " not found.");
+                return false;
+            }
+            System.out.println("\n=== 📊 X REPORT (Shift #" + currentShiftId + ") ===");
+            System.out.println("   Opening Balance: " + totals.openingBalance());
+            System.out.println("   Sales So Far:    " + totals.salesTotal());
+            System.out.println("   Invoices:        " + totals.invoiceCount() + " (" + totals.itemCount() + " items)");
+            System.out.println("   Expected Drawer: " + (totals.openingBalance() + totals.salesTotal()));
+            return true;
+
+        } catch (SQLException e) {
+            System.out.println("❌ Error reading shift totals: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // JFR event for a shift change, started now (committed by the caller when done)
+    private static ShiftEvent shiftEvent(String action, int cashierId) {
+        ShiftEvent event = new ShiftEvent();
+        event.begin();
+        event.action = action;
+        event.cashierId = cashierId;
+        return event;
+    }
+
+    private record ShiftTotals(double openingBalance, double salesTotal, int invoiceCount, int itemCount) {}
+
+    private ShiftTotals readTotals(Connection conn, int shiftId) throws SQLException {
+        String sql = "SELECT opening_balance, sales_total, invoice_count, item_count FROM cash_register WHERE id = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, shiftId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new ShiftTotals(rs.getDouble(1), rs.getDouble(2), rs.getInt(3), rs.getInt(4));
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package org.example.service.cashier;
+
+import org.example.db.Database;
+import org.example.jfr.GroupCommitEvent;
+import org.example.model.Cart;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Group commit for checkout: sales are queued to ONE writer thread, which applies
+// several of them in a single transaction and pays the commit (fsync) once per batch.
+// Each sale runs inside its own SAVEPOINT, so a sale that fails (out of stock, not enough
+// cash...) is rolled back alone and the rest of the batch still commits.
+// A caller's future completes only after the batch holding its invoice is durable: batches
+// commit with PRAGMA synchronous = FULL whatever the configured level (under WAL + NORMAL a
+// commit isn't fsynced, and would be lost on power failure). The fsync is what batching pays for.
+public class GroupCommitWriter implements AutoCloseable {
+
+    // Batch size histogram buckets: 1, 2, 3-4, 5-8, 9-16, 17-32, 33-64, 65+
+    private static final int[] BUCKET_LIMITS = {1, 2, 4, 8, 16, 32, 64, Integer.MAX_VALUE};
+
+    private record Pending(int cashierId, int shiftId, Integer customerId, Cart cart, double cashGiven,
+                           boolean quiet, CompletableFuture<Boolean> done) {}
+
+    private final InvoiceService invoiceService;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending> queue;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // ---- metrics ----
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder invoicesCommitted = new LongAdder();
+    private final LongAdder salesRejected = new LongAdder();
+    private final LongAdder commitNanos = new LongAdder();
+    private final AtomicLongArray batchSizes = new AtomicLongArray(BUCKET_LIMITS.length);
+    private final long startedAt = System.nanoTime();
+
+    public GroupCommitWriter(InvoiceService invoiceService, int maxBatchSize, long maxWaitMillis, int queueCapacity) {
+        this.invoiceService = invoiceService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::run, "checkout-group-commit");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // Queues a sale. The cart must not be modified until the future completes.
+    public CompletableFuture<Boolean> submit(int cashierId, int shiftId, Integer customerId, Cart cart, double cashGiven) {
+        return submit(cashierId, shiftId, customerId, cart, cashGiven, false);
+    }
+
+    // quiet: no receipt and no per-sale console output (simulated sales)
+    public CompletableFuture<Boolean> submit(int cashierId, int shiftId, Integer customerId, Cart cart, double cashGiven,
+                                             boolean quiet) {
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        if (!running) {
+            done.complete(false);
+            return done;
+        }
+        Pending pending = new Pending(cashierId, shiftId, customerId, cart, cashGiven, quiet, done);
+        try {
+            queue.put(pending); // blocks when the lanes outrun the disk
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            done.complete(false);
+            return done;
+        }
+        // close() may have run since the check above, and the worker may already be gone:
+        // take the sale back if it's still queued (otherwise the worker has it, or drained it)
+        if (!running && queue.remove(pending)) done.complete(false);
+        return done;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Collect whatever else arrives within the window, up to maxBatchSize
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                commitBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                // e.g. the database can't be opened: fail this batch, keep serving the next ones
+                System.out.println("❌ Group commit failed: " + e.getMessage());
+            } finally {
+                for (Pending p : batch) p.done().complete(false); // no-op for the ones already completed
+                batch.clear();
+            }
+        }
+
+        // Stopped: whatever a late submit() queued will never be committed
+        Pending leftover;
+        while ((leftover = queue.poll()) != null) leftover.done().complete(false);
+    }
+
+    private void commitBatch(List<Pending> batch) {
+        List<Pending> applied = new ArrayList<>(batch.size());
+        List<InvoiceService.Sale> sales = new ArrayList<>(batch.size());
+
+        GroupCommitEvent event = new GroupCommitEvent();
+        event.begin();
+        event.batchSize = batch.size();
+
+        Connection conn = null;
+        long start = System.nanoTime();
+        try {
+            conn = Database.getWriteConnection();
+            setSynchronous(conn, "FULL"); // only outside a transaction
+            conn.setAutoCommit(false);
+            long connected = System.nanoTime();
+            event.connectionWait = connected - start;
+
+            for (Pending p : batch) {
+                Savepoint sp = conn.setSavepoint();
+                try {
+                    sales.add(invoiceService.applySale(conn, p.cashierId(), p.shiftId(), p.customerId(), p.cart(), p.cashGiven()));
+                    conn.releaseSavepoint(sp);
+                    applied.add(p);
+                } catch (Exception e) {
+                    conn.rollback(sp);
+                    salesRejected.increment();
+                    if (!p.quiet()) System.out.println("❌ Transaction Failed: " + e.getMessage());
+                    p.done().complete(false);
+                }
+            }
+
+            long commitStart = System.nanoTime();
+            event.sqlTime = commitStart - connected;
+            conn.commit(); // ✅ one commit for the whole batch
+            event.commitTime = System.nanoTime() - commitStart;
+            commitNanos.add(event.commitTime);
+            event.committed = applied.size();
+            event.success = true;
+            commits.increment();
+            invoicesCommitted.add(applied.size());
+            recordBatchSize(applied.size());
+
+        } catch (SQLException e) {
+            try { if (conn != null) conn.rollback(); } catch (Exception ex) {}
+            System.out.println("❌ Group commit failed: " + e.getMessage());
+            for (Pending p : applied) p.done().complete(false);
+            return;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true); // ends the transaction, so the level can be set back
+                    setSynchronous(conn, Database.config().getSynchronous());
+                } catch (Exception ex) {}
+                try { conn.close(); } catch (Exception ex) {}
+            }
+            event.rejected = batch.size() - event.committed;
+            event.commit();
+        }
+
+        for (int i = 0; i < applied.size(); i++) {
+            try {
+                invoiceService.completeSale(sales.get(i), applied.get(i).quiet());
+            } catch (RuntimeException e) {
+                System.out.println("❌ Post-sale step failed for invoice #" + sales.get(i).receipt().invoiceId() + ": " + e.getMessage());
+            } finally {
+                applied.get(i).done().complete(true); // committed either way
+            }
+        }
+    }
+
+    private static void setSynchronous(Connection conn, String level) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA synchronous = " + level);
+        }
+    }
+
+    private void recordBatchSize(int size) {
+        if (size == 0) return;
+        for (int i = 0; i < BUCKET_LIMITS.length; i++) {
+            if (size <= BUCKET_LIMITS[i]) {
+                batchSizes.incrementAndGet(i);
+                return;
+            }
+        }
+    }
+
+    public Stats stats() {
+        long[] buckets = new long[BUCKET_LIMITS.length];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = batchSizes.get(i);
+        long commitCount = commits.sum();
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        return new Stats(
+                commitCount,
+                invoicesCommitted.sum(),
+                salesRejected.sum(),
+                commitCount == 0 ? 0 : commitNanos.sum() / commitCount / 1_000,
+                seconds <= 0 ? 0 : commitCount / seconds,
+                queue.size(),
+                buckets
+        );
+    }
+
+    // Stops taking new sales, commits what is already queued, then stops the writer thread
+    // (a sale queued while it stops is completed with false, never left hanging)
+    @Override
+    public void close() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public record Stats(long commits, long invoicesCommitted, long salesRejected, long avgCommitMicros,
+                        double commitsPerSecond, int queued, long[] batchSizeBuckets) {
+
+        public double avgBatchSize() {
+            return commits == 0 ? 0 : (double) invoicesCommitted / commits;
+        }
+
+        @Override
+        public String toString() {
+            String[] labels = {"1", "2", "3-4", "5-8", "9-16", "17-32", "33-64", "65+"};
+            StringBuilder sb = new StringBuilder(String.format(
+                    "commits=%d invoices=%d rejected=%d avgBatch=%.1f avgCommit=%dµs commits/s=%.1f queued=%d batches{",
+                    commits, invoicesCommitted, salesRejected, avgBatchSize(), avgCommitMicros, commitsPerSecond, queued));
+            for (int i = 0; i < labels.length; i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(labels[i]).append('=').append(batchSizeBuckets[i]);
+            }
+            return sb.append('}').toString();
+        }
+    }
+}
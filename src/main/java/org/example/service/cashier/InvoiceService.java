@@ -1,175 +1,321 @@
 package org.example.service.cashier;
 
 import org.example.db.Database;
+import org.example.db.InClause;
+import org.example.jfr.InvoiceEvent;
+import org.example.metrics.Distribution;
+import org.example.metrics.Metrics;
+import org.example.metrics.Timer;
+import org.example.model.Cart;
+import org.example.model.Product;
+import org.example.service.ProductCatalog;
+import org.example.service.ProductLocks;
+import org.example.service.SalesSummaryBatch;
+
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class InvoiceService {
 
+    private static final Timer CREATE_INVOICE = Metrics.timer("invoice.create");
+    private static final Distribution BASKET_LINES = Metrics.distribution("invoice.basketLines");
+
+    // One product row as loaded for a cart
+    private record ProductRow(String name, double price, int stock, int categoryId) {}
+
+    // A sale that went through applySale, waiting for (or past) its commit
+    // stockLeft: each product's stock after this sale (exact: read and decremented by the writer)
+    record Sale(int[] productIds, int[] stockLeft, int pointsEarned, Receipt receipt) {}
+
+    private final ProductLocks productLocks = ProductLocks.shared();
+    private final ProductCatalog catalog = ProductCatalog.shared();
+    private final ReceiptPrinter receiptPrinter = ReceiptPrinter.shared();
+
     // 1. HELPER: Calculate total without changing stock (For UI Preview)
-    public double calculateCartTotal(Map<Integer, Integer> cart) {
+    public double calculateCartTotal(Cart cart) {
+        if (cart.isEmpty()) return 0;
+
+        // Prices come from the in-memory catalog; only products never seen before hit SQLite
         double total = 0;
-        try (Connection conn = Database.getConnection()) {
-            for (Map.Entry<Integer, Integer> entry : cart.entrySet()) {
-                double price = getPrice(conn, entry.getKey());
-                total += price * entry.getValue();
-            }
-        } catch (SQLException e) {
-            System.out.println("❌ Error calculating total: " + e.getMessage());
+        int[] ids = cart.productIds();
+        Map<Integer, Product> products = catalog.getAll(ids, ids.length);
+        for (int i = 0; i < cart.size(); i++) {
+            Product product = products.get(cart.productIdAt(i));
+            if (product != null) total += product.getSellingPrice() * cart.quantityAt(i);
         }
         return total;
     }
 
     // 2. MAIN TRANSACTION: Now accepts 'cashGiven' to calculate Change
-    public synchronized boolean createInvoice(int cashierId, Integer customerId, Map<Integer, Integer> cart, double cashGiven) {
+    // Not synchronized: only the products in this basket are locked (see ProductLocks),
+    // and the stock UPDATE itself refuses to go below zero. (The single writer connection
+    // still serializes the transactions themselves.)
+    // shiftId: the open cash_register row whose running totals this sale adds to (0 = none)
+    public boolean createInvoice(int cashierId, int shiftId, Integer customerId, Cart cart, double cashGiven) {
+        return createInvoice(cashierId, shiftId, customerId, cart, cashGiven, false);
+    }
+
+    // quiet: no receipt and no per-sale console output (simulated sales)
+    public boolean createInvoice(int cashierId, int shiftId, Integer customerId, Cart cart, double cashGiven, boolean quiet) {
+        long t = CREATE_INVOICE.start();
+        boolean ok = commitSale(cashierId, shiftId, customerId, cart, cashGiven, quiet);
+        CREATE_INVOICE.stop(t, ok);
+        if (ok) BASKET_LINES.record(cart.size());
+        return ok;
+    }
+
+    private boolean commitSale(int cashierId, int shiftId, Integer customerId, Cart cart, double cashGiven, boolean quiet) {
+        if (cart.isEmpty()) {
+            if (!quiet) System.out.println("❌ Transaction Failed: Cart is empty.");
+            return false;
+        }
+
+        // JFR: where this checkout's time went (see org.example.jfr, recorded only when enabled)
+        InvoiceEvent event = new InvoiceEvent();
+        event.begin();
+        event.cashierId = cashierId;
+        event.shiftId = shiftId;
+        event.lineCount = cart.size();
+        event.itemCount = cart.totalQuantity();
+
+        int[] ids = cart.productIds();
         Connection conn = null;
+        long start = System.nanoTime();
+        ProductLocks.Held held = productLocks.lock(ids, ids.length);
         try {
-            conn = Database.getConnection();
+            long locked = System.nanoTime();
+            event.lockWait = locked - start;
+
+            conn = Database.getWriteConnection();
             conn.setAutoCommit(false); // START TRANSACTION
+            long connected = System.nanoTime();
+            event.connectionWait = connected - locked;
 
-            double totalInvoiceAmount = 0;
+            Sale sale = applySale(conn, cashierId, shiftId, customerId, cart, cashGiven);
+            long applied = System.nanoTime();
+            event.sqlTime = applied - connected;
 
-            // A. CHECK STOCK & CALCULATE TRUE TOTAL
-            for (Map.Entry<Integer, Integer> entry : cart.entrySet()) {
-                int prodId = entry.getKey();
-                int qtyWanted = entry.getValue();
+            conn.commit(); // ✅ SAVE EVERYTHING
+            event.commitTime = System.nanoTime() - applied;
+            event.invoiceId = sale.receipt().invoiceId();
+            event.total = sale.receipt().total();
 
-                String checkStock = "SELECT name, selling_price, stock_quantity FROM products WHERE id = ?";
-                try (PreparedStatement ps = conn.prepareStatement(checkStock)) {
-                    ps.setInt(1, prodId);
-                    ResultSet rs = ps.executeQuery();
+            completeSale(sale, quiet);
+            event.success = true;
+            return true;
+
+        } catch (Exception e) {
+            try { if (conn != null) conn.rollback(); } catch (Exception ex) {}
+            event.failure = e.getMessage();
+            if (!quiet) System.out.println("❌ Transaction Failed: " + e.getMessage());
+            return false;
+        } finally {
+            try { if (conn != null) conn.close(); } catch (Exception ex) {}
+            held.close();
+            event.commit();
+        }
+    }
 
-                    if (!rs.next()) throw new RuntimeException("Product ID " + prodId + " not found.");
+    // Steps A-G of a sale, inside a transaction the caller owns (createInvoice commits one sale,
+    // GroupCommitWriter commits several). Throws if the sale must not go through.
+    // Set-based: one multi-row SELECT for the whole cart, then one batch of stock
+    // decrements and one batch of invoice_items, whatever the basket size.
+    Sale applySale(Connection conn, int cashierId, int shiftId, Integer customerId, Cart cart, double cashGiven) throws SQLException {
+        if (cart.isEmpty()) throw new RuntimeException("Cart is empty.");
 
-                    String name = rs.getString("name");
-                    double price = rs.getDouble("selling_price");
-                    int stock = rs.getInt("stock_quantity");
+        // A. LOAD EVERY PRODUCT IN THE CART AT ONCE, CHECK STOCK & CALCULATE TRUE TOTAL
+        int[] ids = cart.productIds();
+        Map<Integer, ProductRow> products = loadProducts(conn, ids);
 
-                    if (stock < qtyWanted) {
-                        throw new RuntimeException("OUT OF STOCK: " + name + " (Has " + stock + ", Wanted " + qtyWanted + ")");
-                    }
+        double totalInvoiceAmount = 0;
+        List<Receipt.Line> lines = new ArrayList<>(cart.size());
+        StringBuilder priceChanges = null;
+        for (int i = 0; i < cart.size(); i++) {
+            int prodId = cart.productIdAt(i);
+            int qtyWanted = cart.quantityAt(i);
 
-                    totalInvoiceAmount += (price * qtyWanted);
-                }
-            }
+            ProductRow row = products.get(prodId);
+            if (row == null) throw new RuntimeException("Product ID " + prodId + " not found.");
 
-            // B. VALIDATE PAYMENT
-            if (cashGiven < totalInvoiceAmount) {
-                throw new RuntimeException("Insufficient funds! Total is $" + totalInvoiceAmount + " but received $" + cashGiven);
+            if (row.stock() < qtyWanted) {
+                throw new RuntimeException("OUT OF STOCK: " + row.name() + " (Has " + row.stock() + ", Wanted " + qtyWanted + ")");
             }
-            double change = cashGiven - totalInvoiceAmount;
-
-            // C. CREATE INVOICE
-            int invoiceId;
-            String insertInv = "INSERT INTO invoices (cashier_id, customer_id, total_amount) VALUES (?, ?, ?)";
-            try (PreparedStatement ps = conn.prepareStatement(insertInv, Statement.RETURN_GENERATED_KEYS)) {
-                ps.setInt(1, cashierId);
-                if (customerId == null || customerId == 0) ps.setNull(2, Types.INTEGER);
-                else ps.setInt(2, customerId);
-                ps.setDouble(3, totalInvoiceAmount);
-                ps.executeUpdate();
-
-                ResultSet rs = ps.getGeneratedKeys();
-                rs.next();
-                invoiceId = rs.getInt(1);
+
+            // Never charge something other than what the customer was shown at scan time
+            double quoted = cart.unitPriceAt(i);
+            if (!Double.isNaN(quoted) && Math.abs(quoted - row.price()) >= 0.005) {
+                if (priceChanges == null) priceChanges = new StringBuilder("PRICE CHANGED:");
+                priceChanges.append(String.format(" %s $%.2f -> $%.2f;", row.name(), quoted, row.price()));
             }
 
-            // D. UPDATE STOCK & SAVE ITEMS
-            String updateStock = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ?";
-            String insertItem = "INSERT INTO invoice_items (invoice_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
+            totalInvoiceAmount += (row.price() * qtyWanted);
+            lines.add(new Receipt.Line(row.name(), qtyWanted, row.price()));
+        }
 
-            for (Map.Entry<Integer, Integer> entry : cart.entrySet()) {
-                int prodId = entry.getKey();
-                int qty = entry.getValue();
-                double unitPrice = getPrice(conn, prodId);
+        if (priceChanges != null) throw new RuntimeException(priceChanges.toString());
 
-                try (PreparedStatement ps = conn.prepareStatement(updateStock)) {
-                    ps.setInt(1, qty);
-                    ps.setInt(2, prodId);
-                    ps.executeUpdate();
+        // B. VALIDATE PAYMENT
+        if (cashGiven < totalInvoiceAmount) {
+            throw new RuntimeException("Insufficient funds! Total is $" + totalInvoiceAmount + " but received $" + cashGiven);
+        }
+        double change = cashGiven - totalInvoiceAmount;
+
+        // C. CREATE INVOICE
+        int invoiceId;
+        String insertInv = "INSERT INTO invoices (cashier_id, customer_id, total_amount, shift_id) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(insertInv, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, cashierId);
+            if (customerId == null || customerId == 0) ps.setNull(2, Types.INTEGER);
+            else ps.setInt(2, customerId);
+            ps.setDouble(3, totalInvoiceAmount);
+            if (shiftId > 0) ps.setInt(4, shiftId);
+            else ps.setNull(4, Types.INTEGER);
+            ps.executeUpdate();
+
+            ResultSet rs = ps.getGeneratedKeys();
+            rs.next();
+            invoiceId = rs.getInt(1);
+        }
+
+        // D. UPDATE STOCK, SAVE ITEMS & LOG THE 'OUT' MOVEMENTS (one batch each)
+        // The stock decrement is conditional: a line that would go negative updates 0 rows
+        String updateStock = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+        String insertItem = "INSERT INTO invoice_items (invoice_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
+        String insertMovement = """
+            INSERT INTO stock_movements (product_id, user_id, movement_type, quantity, reference, created_at)
+            VALUES (?, ?, 'OUT', ?, ?, CURRENT_TIMESTAMP)
+        """;
+        String reference = "INV-" + invoiceId; // the ledger entries of a sale point back to its invoice
+
+        try (PreparedStatement stock = conn.prepareStatement(updateStock);
+             PreparedStatement items = conn.prepareStatement(insertItem);
+             PreparedStatement movements = conn.prepareStatement(insertMovement)) {
+            for (int i = 0; i < cart.size(); i++) {
+                int prodId = cart.productIdAt(i);
+                int qty = cart.quantityAt(i);
+
+                stock.setInt(1, qty);
+                stock.setInt(2, prodId);
+                stock.setInt(3, qty);
+                stock.addBatch();
+
+                items.setInt(1, invoiceId);
+                items.setInt(2, prodId);
+                items.setInt(3, qty);
+                items.setDouble(4, products.get(prodId).price());
+                items.addBatch();
+
+                movements.setInt(1, prodId);
+                movements.setInt(2, cashierId);
+                movements.setInt(3, qty);
+                movements.setString(4, reference);
+                movements.addBatch();
+            }
+            int[] updated = stock.executeBatch();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    // Someone else (another lane or process) sold it since we read the row
+                    throw new RuntimeException("OUT OF STOCK: " + products.get(ids[i]).name() + " (sold out during checkout)");
                 }
-                try (PreparedStatement ps = conn.prepareStatement(insertItem)) {
-                    ps.setInt(1, invoiceId);
-                    ps.setInt(2, prodId);
-                    ps.setInt(3, qty);
-                    ps.setDouble(4, unitPrice);
+            }
+            items.executeBatch();
+            movements.executeBatch();
+        }
+
+        // E. LOYALTY POINTS (announced by completeSale, once committed)
+        int pointsEarned = 0;
+        if (customerId != null && customerId > 0) {
+            pointsEarned = (int) (totalInvoiceAmount / 100) * 10;
+            if (pointsEarned > 0) {
+                String updatePoints = "UPDATE customers SET points = points + ? WHERE id = ?";
+                try (PreparedStatement ps = conn.prepareStatement(updatePoints)) {
+                    ps.setInt(1, pointsEarned);
+                    ps.setInt(2, customerId);
                     ps.executeUpdate();
                 }
             }
+        }
 
-            // E. LOYALTY POINTS
-            if (customerId != null && customerId > 0) {
-                int pointsEarned = (int) (totalInvoiceAmount / 100) * 10;
-                if (pointsEarned > 0) {
-                    String updatePoints = "UPDATE customers SET points = points + ? WHERE id = ?";
-                    try (PreparedStatement ps = conn.prepareStatement(updatePoints)) {
-                        ps.setInt(1, pointsEarned);
-                        ps.setInt(2, customerId);
-                        ps.executeUpdate();
-                        System.out.println("🎉 Customer earned " + pointsEarned + " loyalty points!");
-                    }
-                }
+        // F. SHIFT RUNNING TOTALS (so closing the shift or an X report is a single-row read)
+        if (shiftId > 0) {
+            String updateShift = """
+                UPDATE cash_register
+                SET sales_total = sales_total + ?, invoice_count = invoice_count + 1, item_count = item_count + ?
+                WHERE id = ? AND closed_at IS NULL
+            """;
+            try (PreparedStatement ps = conn.prepareStatement(updateShift)) {
+                ps.setDouble(1, totalInvoiceAmount);
+                ps.setInt(2, cart.totalQuantity());
+                ps.setInt(3, shiftId);
+                if (ps.executeUpdate() == 0) throw new RuntimeException("Shift #" + shiftId + " is not open.");
             }
+        }
 
-            conn.commit(); // ✅ SAVE EVERYTHING
+        // G. DAILY SALES SUMMARIES (per product, category and cashier; dashboards read these)
+        try (SalesSummaryBatch summaries = new SalesSummaryBatch(conn)) {
+            String day = invoiceDay(conn, invoiceId);
+            for (int i = 0; i < cart.size(); i++) {
+                int prodId = cart.productIdAt(i);
+                int qty = cart.quantityAt(i);
+                ProductRow row = products.get(prodId);
+                summaries.addProduct(day, prodId, qty, row.price() * qty, 1);
+                summaries.addCategory(day, row.categoryId(), qty, row.price() * qty);
+            }
+            summaries.addCashier(day, cashierId, 1, cart.totalQuantity(), totalInvoiceAmount);
+            summaries.execute();
+        }
 
-            // F. PRINT RECEIPT (Now with Change)
-            printReceipt(invoiceId, cart, conn, cashGiven, change);
+        // Snapshot of exactly what was charged, taken inside the transaction
+        Receipt receipt = new Receipt(invoiceId, lines, totalInvoiceAmount, cashGiven, change);
+        int[] stockLeft = new int[cart.size()];
+        for (int i = 0; i < stockLeft.length; i++) stockLeft[i] = products.get(ids[i]).stock() - cart.quantityAt(i);
+        return new Sale(ids, stockLeft, pointsEarned, receipt);
+    }
 
-            System.out.println("✅ Sale successful!");
-            return true;
+    // After the commit: stock went down for every product sold, then the receipt (unless quiet)
+    void completeSale(Sale sale, boolean quiet) {
+        catalog.stockUpdated(sale.productIds(), sale.stockLeft(), sale.productIds().length);
+        if (quiet) return;
 
-        } catch (Exception e) {
-            try { if (conn != null) conn.rollback(); } catch (Exception ex) {}
-            System.out.println("❌ Transaction Failed: " + e.getMessage());
-            return false;
-        } finally {
-            try { if (conn != null) conn.close(); } catch (Exception ex) {}
-        }
+        if (sale.pointsEarned() > 0) System.out.println("🎉 Customer earned " + sale.pointsEarned() + " loyalty points!");
+
+        // H. PRINT RECEIPT (Now with Change) - rendered in the background from the snapshot
+        receiptPrinter.submit(sale.receipt());
+
+        System.out.println("✅ Sale successful! (Invoice #" + sale.receipt().invoiceId() + ")");
     }
 
-    private void printReceipt(int invoiceId, Map<Integer, Integer> cart, Connection conn, double cash, double change) {
-        System.out.println("\n" + "=".repeat(30));
-        System.out.println("      🧾 OFFICIAL RECEIPT      ");
-        System.out.println("      Invoice ID: #" + invoiceId);
-        System.out.println("=".repeat(30));
-        System.out.printf("%-15s %5s %10s\n", "Item", "Qty", "Price");
-        System.out.println("-".repeat(30));
-
-        double totalCalculated = cart.entrySet().stream()
-                .mapToDouble(entry -> {
-                    int prodId = entry.getKey();
-                    int qty = entry.getValue();
-                    try {
-                        String sql = "SELECT name, selling_price FROM products WHERE id = ?";
-                        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                            ps.setInt(1, prodId);
-                            ResultSet rs = ps.executeQuery();
-                            if (rs.next()) {
-                                String name = rs.getString("name");
-                                double price = rs.getDouble("selling_price");
-                                double lineTotal = price * qty;
-                                System.out.printf("%-15s %5d %10.2f\n", (name.length() > 15 ? name.substring(0, 15) : name), qty, lineTotal);
-                                return lineTotal;
-                            }
-                        }
-                    } catch (SQLException e) { e.printStackTrace(); }
-                    return 0.0;
-                }).sum();
-
-        System.out.println("-".repeat(30));
-        System.out.printf("TOTAL:             $%10.2f\n", totalCalculated);
-        System.out.printf("CASH:              $%10.2f\n", cash);
-        System.out.printf("CHANGE:            $%10.2f\n", change);
-        System.out.println("=".repeat(30));
-        System.out.println("   Thank you for shopping!   \n");
+    // The summaries' day is the invoice's own date, so a rebuild from history lands on the same rows
+    private String invoiceDay(Connection conn, int invoiceId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT date(created_at) FROM invoices WHERE id = ?")) {
+            ps.setInt(1, invoiceId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
     }
 
-    private double getPrice(Connection conn, int id) throws SQLException {
-        try(PreparedStatement ps = conn.prepareStatement("SELECT selling_price FROM products WHERE id=?")){
-            ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
-            return rs.next() ? rs.getDouble(1) : 0;
+    // One round trip for the whole cart instead of one SELECT per line
+    private Map<Integer, ProductRow> loadProducts(Connection conn, int[] ids) throws SQLException {
+        String sql = "SELECT id, name, selling_price, stock_quantity, category_id FROM products WHERE id IN ("
+                + InClause.placeholders(ids.length) + ")";
+        Map<Integer, ProductRow> rows = new HashMap<>(ids.length * 2);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            InClause.bind(ps, 1, ids, ids.length);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.put(rs.getInt("id"), new ProductRow(
+                            rs.getString("name"),
+                            rs.getDouble("selling_price"),
+                            rs.getInt("stock_quantity"),
+                            rs.getInt("category_id"))); // NULL -> 0, "no category" in the summaries
+                }
+            }
         }
+        return rows;
     }
-}
\ No newline at end of file
+}
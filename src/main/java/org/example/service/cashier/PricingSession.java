@@ -0,0 +1,75 @@
+package org.example.service.cashier;
+
+import org.example.model.Cart;
+import org.example.model.Product;
+import org.example.service.ProductCatalog;
+
+import java.util.Map;
+
+// The running bill of one customer at the lane.
+// Each product's price is captured once, the first time it is scanned, and stored on the
+// cart line; after that adding, removing or changing a line only adjusts the subtotal, so
+// the cost of a scan doesn't grow with the basket. At checkout, createInvoice compares the
+// captured prices with the current ones in the same pass that checks stock.
+public class PricingSession {
+
+    private final ProductCatalog catalog;
+    private final Cart cart;
+
+    public PricingSession(ProductCatalog catalog) {
+        this(catalog, new Cart());
+    }
+
+    public PricingSession(ProductCatalog catalog, Cart cart) {
+        this.catalog = catalog;
+        this.cart = cart;
+    }
+
+    // Adds qty of the product; returns null (and changes nothing) if the product doesn't exist
+    public Product scan(int productId, int qty) {
+        Product product = catalog.get(productId);
+        if (product == null) return null;
+        cart.add(productId, qty, product.getSellingPrice()); // keeps the price captured on the first scan
+        return product;
+    }
+
+    // Same, by barcode; an unknown code is answered from memory (see BarcodeIndex)
+    public Product scanBarcode(String barcode, int qty) {
+        Product product = catalog.findByBarcode(barcode);
+        if (product == null) return null;
+        cart.add(product.getId(), qty, product.getSellingPrice());
+        return product;
+    }
+
+    public boolean remove(int productId) {
+        return cart.remove(productId);
+    }
+
+    public void setQuantity(int productId, int qty) {
+        if (cart.contains(productId)) cart.set(productId, qty);
+    }
+
+    public double subtotal() {
+        return cart.subtotal();
+    }
+
+    public Cart cart() {
+        return cart;
+    }
+
+    // Re-captures every line's price from the catalog (e.g. after checkout refused a changed price)
+    public void reprice() {
+        int[] ids = cart.productIds();
+        catalog.invalidate(ids, ids.length); // the cached price may be the stale one
+        Map<Integer, Product> products = catalog.getAll(ids, ids.length);
+        for (int id : ids) {
+            Product p = products.get(id);
+            if (p != null) cart.capturePrice(id, p.getSellingPrice());
+        }
+    }
+
+    // Ready for the next customer; keeps the cart's capacity
+    public void reset() {
+        cart.clear();
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.service.cashier;
+
+import java.util.List;
+
+// Immutable snapshot of a sale, taken inside the checkout transaction from the rows that
+// were actually charged. Printing it later never goes back to the database, so a receipt
+// always matches what the customer paid even if prices change afterwards.
+public record Receipt(int invoiceId, List<Line> lines, double total, double cash, double change) {
+
+    public record Line(String name, int quantity, double unitPrice) {
+        public double lineTotal() {
+            return unitPrice * quantity;
+        }
+    }
+
+    public Receipt {
+        lines = List.copyOf(lines);
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.service.cashier;
+
+import java.util.Formatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Renders receipts on a background thread, so checkout returns as soon as its commit is done.
+// The queue is bounded: when printing can't keep up, the lane renders its own receipt
+// instead of piling up memory (backpressure, nothing is dropped).
+// Each receipt is formatted into a reused buffer and written with a single print call,
+// so receipts from different lanes never interleave line by line.
+// flush() waits for the queued receipts; close() also makes later receipts print inline.
+// The shared printer is closed by a shutdown hook, so no receipt is lost when the JVM exits.
+public class ReceiptPrinter {
+
+    private static final ReceiptPrinter SHARED = new ReceiptPrinter(256);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SHARED::close, "receipt-printer-drain"));
+    }
+
+    private final BlockingQueue<Receipt> queue;
+    private final StringBuilder buffer = new StringBuilder(1024);  // printer thread only
+    private final Formatter formatter = new Formatter(buffer);
+    private final LongAdder printed = new LongAdder();
+    private final LongAdder printedInline = new LongAdder();
+
+    // Receipts queued or being printed, and whether the queue still takes new ones (guarded by drained)
+    private final Object drained = new Object();
+    private int outstanding;
+    private boolean closed;
+
+    public ReceiptPrinter(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        Thread worker = new Thread(this::run, "receipt-printer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public static ReceiptPrinter shared() {
+        return SHARED;
+    }
+
+    public void submit(Receipt receipt) {
+        boolean queued;
+        synchronized (drained) {
+            queued = !closed && queue.offer(receipt);
+            if (queued) outstanding++;
+        }
+        if (!queued) {
+            printedInline.increment();
+            StringBuilder sb = new StringBuilder(1024);
+            render(receipt, sb, new Formatter(sb));
+            System.out.print(sb);
+        }
+    }
+
+    public long printedCount() {
+        return printed.sum() + printedInline.sum();
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    // Returns once every receipt submitted so far is printed
+    public void flush() {
+        synchronized (drained) {
+            while (outstanding > 0) {
+                try {
+                    drained.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Drains the queue; receipts submitted afterwards are printed by the caller
+    public void close() {
+        synchronized (drained) {
+            closed = true;
+        }
+        flush();
+    }
+
+    private void run() {
+        while (true) {
+            Receipt receipt;
+            try {
+                receipt = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                buffer.setLength(0);
+                render(receipt, buffer, formatter);
+                System.out.print(buffer);
+                printed.increment();
+            } catch (RuntimeException e) {
+                System.out.println("❌ Failed to print receipt: " + e.getMessage());
+            } finally {
+                synchronized (drained) {
+                    if (--outstanding == 0) drained.notifyAll();
+                }
+            }
+        }
+    }
+
+    private static void render(Receipt receipt, StringBuilder sb, Formatter f) {
+        sb.append('\n').append("=".repeat(30)).append('\n');
+        sb.append("      🧾 OFFICIAL RECEIPT      \n");
+        sb.append("      Invoice ID: #").append(receipt.invoiceId()).append('\n');
+        sb.append("=".repeat(30)).append('\n');
+        f.format("%-15s %5s %10s\n", "Item", "Qty", "Price");
+        sb.append("-".repeat(30)).append('\n');
+
+        for (Receipt.Line line : receipt.lines()) {
+            String name = line.name();
+            f.format("%-15s %5d %10.2f\n", (name.length() > 15 ? name.substring(0, 15) : name),
+                    line.quantity(), line.lineTotal());
+        }
+
+        sb.append("-".repeat(30)).append('\n');
+        f.format("TOTAL:             $%10.2f\n", receipt.total());
+        f.format("CASH:              $%10.2f\n", receipt.cash());
+        f.format("CHANGE:            $%10.2f\n", receipt.change());
+        sb.append("=".repeat(30)).append('\n');
+        sb.append("   Thank you for shopping!   \n\n");
+    }
+}
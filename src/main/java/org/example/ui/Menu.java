@@ -1,12 +1,18 @@
 // src/main/java/org/example/ui/Menu.java
 package org.example.ui;
 
+import org.example.export.DataExporter;
+import org.example.export.ExportFormat;
+import org.example.model.Delivery;
 import org.example.model.User;
 import org.example.service.CategoryService;
+import org.example.service.SalesSummaryService;
 import org.example.service.StockManagerService;
 import org.example.service.SupplierService;
 import org.example.service.UserService;
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Scanner;
 import java.util.concurrent.CompletableFuture;
 import java.util.List;
@@ -38,6 +44,10 @@ public class Menu {
             System.out.println("7) List suppliers");
             System.out.println("8) Search suppliers");
             System.out.println("9) List suppliers with email");
+            System.out.println("10) 📈 Live metrics " + (org.example.metrics.Metrics.isEnabled() ? "[ON]" : "[OFF]"));
+            System.out.println("11) Export sales data (invoices, items, stock movements)");
+            System.out.println("12) Sales dashboard");
+            System.out.println("13) Rebuild sales summaries");
             System.out.println("0) Logout");
             System.out.print("Choose: ");
             String choice = sc.nextLine();
@@ -163,6 +173,21 @@ public class Menu {
                     }
                 }
 
+                case "10" -> liveMetrics(sc);
+
+                case "11" -> exportSalesData(sc);
+
+                case "12" -> salesDashboard(sc);
+
+                case "13" -> {
+                    System.out.println("⏳ Rebuilding sales summaries from the invoice history...");
+                    try {
+                        System.out.println("✅ " + new SalesSummaryService().rebuild());
+                    } catch (Exception e) {
+                        System.out.println("❌ Rebuild failed: " + e.getMessage());
+                    }
+                }
+
                 case "0" -> { return; }
 
                 default -> System.out.println("❌ Invalid choice");
@@ -181,6 +206,8 @@ public class Menu {
             System.out.println("2) 🛒 New Sale (Client Mode)"); // <--- UPDATED
             System.out.println("3) 🤖 Run Simulation");
             System.out.println("4) 🏁 End Shift");
+            System.out.println("5) ⚡ Group Commit (rush hour) " + (cashierService.groupCommitStats() == null ? "[OFF]" : "[ON]"));
+            System.out.println("6) 📊 X Report (shift so far)");
             System.out.println("0) Logout");
             System.out.print("Choose: ");
             String choice = sc.nextLine();
@@ -192,19 +219,21 @@ public class Menu {
                 }
                 case "2" -> {
                     // === 🛒 CLIENT INTERFACE START ===
-                    java.util.Map<Integer, Integer> cart = new java.util.HashMap<>();
+                    org.example.service.cashier.PricingSession session = cashierService.newPricingSession();
+                    org.example.model.Cart cart = session.cart();
                     int customerId = readInt(sc, "Enter Customer ID (0 for Guest): ");
 
                     while (true) {
-                        double currentTotal = cashierService.getCartTotal(cart);
+                        double currentTotal = session.subtotal(); // updated on each scan, no re-pricing
                         System.out.println("\n   --- 🛍️ CLIENT CART ---");
-                        System.out.println("   Items in cart: " + cart.size());
+                        System.out.println("   Items in cart: " + cart.totalQuantity() + " (" + cart.size() + " lines)");
                         System.out.printf("   Current Total: $%.2f\n", currentTotal);
                         System.out.println("   ----------------------");
                         System.out.println("   1. Add Item (Enter ID)");
                         System.out.println("   2. Browse Categories 📂"); // <--- NEW OPTION
                         System.out.println("   3. Remove Item");
                         System.out.println("   4. ✅ PAY & CHECKOUT");
+                        System.out.println("   5. Scan Barcode 🔎");
                         System.out.println("   0. Cancel Sale");
                         System.out.print("   Action: ");
                         String subChoice = sc.nextLine();
@@ -212,8 +241,8 @@ public class Menu {
                         if (subChoice.equals("1")) {
                             int pId = readInt(sc, "   ➡ Product ID: ");
                             int qty = readInt(sc, "   ➡ Quantity: ");
-                            cart.put(pId, cart.getOrDefault(pId, 0) + qty);
-                            System.out.println("   ✅ Added to cart.");
+                            if (session.scan(pId, qty) != null) System.out.println("   ✅ Added to cart.");
+                            else System.out.println("   ❌ Unknown product.");
 
                         } else if (subChoice.equals("2")) {
                             // 👇 NEW BROWSING LOGIC 👇
@@ -226,16 +255,15 @@ public class Menu {
                                     int pId = readInt(sc, "   ➡ Enter Product ID to buy (0 to cancel): ");
                                     if (pId != 0) {
                                         int qty = readInt(sc, "   ➡ Quantity: ");
-                                        cart.put(pId, cart.getOrDefault(pId, 0) + qty);
-                                        System.out.println("   ✅ Added to cart.");
+                                        if (session.scan(pId, qty) != null) System.out.println("   ✅ Added to cart.");
+                                        else System.out.println("   ❌ Unknown product.");
                                     }
                                 }
                             }
 
                         } else if (subChoice.equals("3")) {
                             int pId = readInt(sc, "   ➡ Product ID to remove: ");
-                            if (cart.containsKey(pId)) {
-                                cart.remove(pId);
+                            if (session.remove(pId)) {
                                 System.out.println("   🗑️ Item removed.");
                             } else {
                                 System.out.println("   ⚠️ Item not in cart.");
@@ -253,20 +281,55 @@ public class Menu {
                                 } else {
                                     boolean success = cashierService.processTransaction(user.getId(), customerId, cart, cash);
                                     if (success) break;
+                                    session.reprice(); // e.g. a price changed since it was scanned: show the new total
                                 }
                             }
+                        } else if (subChoice.equals("5")) {
+                            // Scanner guns type the code and press Enter; an empty line goes back
+                            while (true) {
+                                System.out.print("   ➡ Barcode (Enter to finish): ");
+                                String code = sc.nextLine().trim();
+                                if (code.isEmpty()) break;
+                                org.example.model.Product p = session.scanBarcode(code, 1);
+                                if (p != null) System.out.printf("   ✅ %s $%.2f\n", p.getName(), p.getSellingPrice());
+                                else System.out.println("   ❌ Unknown barcode.");
+                            }
+
                         } else if (subChoice.equals("0")) {
                             break;
                         }
                     }
                 }
                 case "3" -> {
-                    // Note: Simulation needs update to pass a dummy "cash amount"
-                    // Since we changed the method signature, we need to fix StoreSimulation.java too!
-                    org.example.service.StoreSimulation.startSimulation(user.getId(), cashierService);
+                    // Other knobs (skew, basket size, think time...) come from -Dmarchi.sim.*
+                    org.example.service.SimulationConfig config = org.example.service.SimulationConfig.fromSystemProperties();
+                    int shoppers = readInt(sc, "Shoppers (0 = " + config.getShoppers() + "): ");
+                    int lanes = readInt(sc, "Checkout lanes (0 = " + config.getLanes() + "): ");
+                    int seconds = readInt(sc, "Duration in seconds (0 = " + config.getDuration().toSeconds() + "): ");
+                    if (shoppers > 0) config.shoppers(shoppers);
+                    if (lanes > 0) config.lanes(lanes);
+                    if (seconds > 0) config.duration(java.time.Duration.ofSeconds(seconds));
+                    org.example.service.StoreSimulation.startSimulation(user.getId(), cashierService, config);
                 }
                 case "4" -> cashierService.endShift(user.getId());
-                case "0" -> { return; }
+                case "5" -> {
+                    org.example.service.cashier.GroupCommitWriter.Stats stats = cashierService.groupCommitStats();
+                    if (stats == null) {
+                        int maxBatch = readInt(sc, "Max invoices per commit: ");
+                        int maxWait = readInt(sc, "Max wait per batch (ms): ");
+                        cashierService.enableGroupCommit(Math.max(1, maxBatch), Math.max(0, maxWait));
+                        System.out.println("✅ Group commit ON.");
+                    } else {
+                        cashierService.disableGroupCommit();
+                        System.out.println("📊 " + stats);
+                        System.out.println("✅ Group commit OFF.");
+                    }
+                }
+                case "6" -> cashierService.xReport();
+                case "0" -> {
+                    org.example.service.cashier.ReceiptPrinter.shared().flush(); // the lane's last receipts
+                    return;
+                }
                 default -> System.out.println("Invalid choice");
             }
         }
@@ -284,6 +347,9 @@ public class Menu {
             System.out.println("4) List categories");
             System.out.println("5) List suppliers");
             System.out.println("6) check stock ");
+            System.out.println("7) Bulk import products (CSV)");
+            System.out.println("8) Receive delivery");
+            System.out.println("9) Reconcile stock with the ledger");
             System.out.println("0) Logout");
             System.out.print("Choose: ");
 
@@ -326,9 +392,42 @@ public class Menu {
                 case "6" -> {
                     System.out.print("Enter product ID or name: ");
                     String q = sc.nextLine();
-                    stockService.checkStock(q);
+                    int page = 0;
+                    while (stockService.checkStock(q, page)) {
+                        System.out.print("More results. Press Enter for the next page, 0 to stop: ");
+                        if (sc.nextLine().trim().equals("0")) break;
+                        page++;
+                    }
                 }
 
+                case "7" -> {
+                    System.out.println("Header: name,barcode,category,supplier,purchase_price,selling_price,stock_quantity");
+                    System.out.print("CSV file path: ");
+                    String path = sc.nextLine();
+                    System.out.print("Create missing categories/suppliers? (y/n): ");
+                    boolean createMissing = sc.nextLine().trim().equalsIgnoreCase("y");
+                    stockService.importProducts(path, createMissing, user.getId());
+                }
+
+                case "8" -> {
+                    System.out.print("Delivery reference (delivery note no.): ");
+                    String reference = sc.nextLine().trim();
+                    if (reference.isEmpty()) {
+                        System.out.println("❌ A reference is required.");
+                        continue;
+                    }
+                    Delivery delivery = new Delivery(reference);
+                    System.out.println("Enter the lines, product ID 0 to finish.");
+                    while (true) {
+                        int productId = readInt(sc, "  Product ID: ");
+                        if (productId == 0) break;
+                        delivery.add(productId, readInt(sc, "  Quantity received: "));
+                    }
+                    stockService.receiveDelivery(delivery, user.getId());
+                }
+
+                case "9" -> stockService.reconcileStock();
+
                 case "0" -> {
                     return;
                 }
@@ -338,6 +437,100 @@ public class Menu {
         }
     }
 
+    private static void salesDashboard(Scanner sc) {
+        System.out.print("Last how many days? (Enter = 7): ");
+        String input = sc.nextLine().trim();
+        int days;
+        try {
+            days = input.isEmpty() ? 7 : Math.max(1, Integer.parseInt(input));
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Please enter a valid integer.");
+            return;
+        }
+        LocalDate to = LocalDate.now(ZoneOffset.UTC); // summaries are dated like CURRENT_TIMESTAMP
+        LocalDate from = to.minusDays(days - 1);
+
+        SalesSummaryService summaries = new SalesSummaryService();
+        try {
+            System.out.println("\n=== 💰 SALES " + from + " -> " + to + " ===");
+            summaries.dailySales(from, to).forEach(day -> System.out.println("   " + day));
+            System.out.println("\n--- Top 10 products ---");
+            summaries.topProducts(from, to, 10).forEach(p -> System.out.println("   " + p));
+            System.out.println("\n--- Categories ---");
+            summaries.categorySales(from, to).forEach(c -> System.out.println("   " + c));
+            System.out.println("\n--- Cashiers ---");
+            summaries.cashierSales(from, to).forEach(c -> System.out.println("   " + c));
+        } catch (Exception e) {
+            System.out.println("❌ Error reading sales summaries: " + e.getMessage());
+        }
+    }
+
+    private static void exportSalesData(Scanner sc) {
+        System.out.print("Output directory (Enter = exports): ");
+        String dir = sc.nextLine().trim();
+        System.out.print("Format, csv or bin (Enter = csv): ");
+        ExportFormat format = sc.nextLine().trim().equalsIgnoreCase("bin") ? ExportFormat.BINARY : ExportFormat.CSV;
+        System.out.print("Only rows since the last export? (y/n): ");
+        boolean incremental = sc.nextLine().trim().equalsIgnoreCase("y");
+
+        DataExporter exporter = new DataExporter(java.nio.file.Path.of(dir.isEmpty() ? "exports" : dir), format);
+        try {
+            exporter.exportAll(incremental).forEach(report -> System.out.println("✅ " + report));
+        } catch (Exception e) {
+            System.out.println("❌ Export failed: " + e.getMessage());
+        }
+    }
+
+    // Redraws every 2 seconds until Enter; "on" / "off" / "reset" + Enter act on the metrics instead.
+    // The keyboard is read by a helper thread (one line per thread, so none is left reading
+    // once we return to the menu); this thread only waits for its line, up to the next redraw.
+    private static void liveMetrics(Scanner sc) {
+        java.util.concurrent.BlockingQueue<String> typed = new java.util.concurrent.SynchronousQueue<>();
+        boolean reading = false;
+        while (true) {
+            System.out.println("\n=== 📈 LIVE METRICS (" + java.time.LocalTime.now().withNano(0) + ") ===");
+            System.out.print(org.example.metrics.Metrics.snapshot());
+            System.out.println();
+            org.example.db.Database.stats().forEach(stats -> System.out.println("🔌 " + stats));
+            System.out.println("📦 " + org.example.service.ProductCatalog.shared().stats());
+            System.out.println("🔎 " + org.example.service.BarcodeIndex.shared().stats());
+            System.out.println("(Enter = back, on/off/reset = metrics " + (org.example.metrics.Metrics.isEnabled() ? "ON" : "OFF") + ")");
+
+            if (!reading) {
+                reading = true;
+                Thread.ofVirtual().name("live-metrics-input").start(() -> {
+                    String line;
+                    try {
+                        line = sc.nextLine();
+                    } catch (Exception e) {
+                        line = ""; // input closed: leave the screen
+                    }
+                    try {
+                        typed.put(line);
+                    } catch (InterruptedException ignored) {
+                    }
+                });
+            }
+
+            String line;
+            try {
+                line = typed.poll(2, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (line == null) continue; // nothing typed: refresh
+            reading = false;
+
+            switch (line.trim().toLowerCase()) {
+                case "on" -> org.example.metrics.Metrics.setEnabled(true);
+                case "off" -> org.example.metrics.Metrics.setEnabled(false);
+                case "reset" -> org.example.metrics.Metrics.reset();
+                default -> { return; }
+            }
+        }
+    }
+
     // ---- small helpers to avoid Scanner bugs ----
     private static int readInt(Scanner sc, String msg) {
         while (true) {
@@ -68,19 +68,6 @@ CREATE TABLE IF NOT EXISTS invoices (
     FOREIGN KEY (customer_id) REFERENCES customers(id)
     );
 
--- =========================
--- INVOICES
--- =========================
-CREATE TABLE IF NOT EXISTS invoices (
-                                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                                        cashier_id INTEGER NOT NULL,
-                                        customer_id INTEGER,
-                                        total_amount REAL NOT NULL,
-                                        created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-                                        FOREIGN KEY (cashier_id) REFERENCES users(id) ON DELETE RESTRICT,
-    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE SET NULL
-    );
-
 -- =========================
 -- INVOICE ITEMS
 -- =========================
@@ -0,0 +1,16 @@
+-- =========================
+-- HOT PATH INDEXES
+-- =========================
+
+-- CashRegisterService.endShift: invoices of one cashier since the shift opened
+CREATE INDEX IF NOT EXISTS idx_invoices_cashier_created ON invoices(cashier_id, created_at);
+
+-- CashierService.listProductsByCategory: products of one aisle
+CREATE INDEX IF NOT EXISTS idx_products_category ON products(category_id);
+
+-- Lines of one invoice, and sales history of one product
+CREATE INDEX IF NOT EXISTS idx_invoice_items_invoice ON invoice_items(invoice_id);
+CREATE INDEX IF NOT EXISTS idx_invoice_items_product ON invoice_items(product_id);
+
+-- Stock ledger of one product, in time order
+CREATE INDEX IF NOT EXISTS idx_stock_movements_product_created ON stock_movements(product_id, created_at);
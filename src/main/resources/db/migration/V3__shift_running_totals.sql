@@ -0,0 +1,12 @@
+-- =========================
+-- SHIFT RUNNING TOTALS
+-- =========================
+
+-- Every invoice belongs to the shift (cash_register row) it was rung up in
+ALTER TABLE invoices ADD COLUMN shift_id INTEGER REFERENCES cash_register(id);
+CREATE INDEX IF NOT EXISTS idx_invoices_shift ON invoices(shift_id);
+
+-- Kept up to date by checkout, in the same transaction as the invoice
+ALTER TABLE cash_register ADD COLUMN sales_total REAL NOT NULL DEFAULT 0;
+ALTER TABLE cash_register ADD COLUMN invoice_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE cash_register ADD COLUMN item_count INTEGER NOT NULL DEFAULT 0;
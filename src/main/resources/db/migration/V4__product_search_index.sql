@@ -0,0 +1,32 @@
+-- =========================
+-- PRODUCT SEARCH (FTS5)
+-- =========================
+
+-- External-content index over products(name, barcode): the text lives in products,
+-- the index only stores tokens. prefix='2 3' makes short prefix queries ("mil*") cheap.
+CREATE VIRTUAL TABLE IF NOT EXISTS products_fts USING fts5(
+    name,
+    barcode,
+    content = 'products',
+    content_rowid = 'id',
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+-- Keep the index in sync with every write path (addProduct, imports, manual SQL)
+CREATE TRIGGER IF NOT EXISTS products_fts_ai AFTER INSERT ON products BEGIN
+    INSERT INTO products_fts(rowid, name, barcode) VALUES (new.id, new.name, new.barcode);
+END;
+
+CREATE TRIGGER IF NOT EXISTS products_fts_ad AFTER DELETE ON products BEGIN
+    INSERT INTO products_fts(products_fts, rowid, name, barcode) VALUES ('delete', old.id, old.name, old.barcode);
+END;
+
+-- Only name/barcode changes touch the index; stock updates at checkout don't
+CREATE TRIGGER IF NOT EXISTS products_fts_au AFTER UPDATE OF name, barcode ON products BEGIN
+    INSERT INTO products_fts(products_fts, rowid, name, barcode) VALUES ('delete', old.id, old.name, old.barcode);
+    INSERT INTO products_fts(rowid, name, barcode) VALUES (new.id, new.name, new.barcode);
+END;
+
+-- Index the products that already exist
+INSERT INTO products_fts(products_fts) VALUES ('rebuild');
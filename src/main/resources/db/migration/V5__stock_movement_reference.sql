@@ -0,0 +1,7 @@
+-- =========================
+-- STOCK MOVEMENT REFERENCE
+-- =========================
+
+-- Document a movement belongs to (e.g. the delivery note of a goods receipt); NULL for single moves
+ALTER TABLE stock_movements ADD COLUMN reference TEXT;
+CREATE INDEX IF NOT EXISTS idx_stock_movements_reference ON stock_movements(reference);
@@ -0,0 +1,12 @@
+-- =========================
+-- EXPORT CHECKPOINTS
+-- =========================
+
+-- Highest id already exported per table, so the nightly extract only streams the new rows
+CREATE TABLE IF NOT EXISTS export_checkpoints (
+    table_name TEXT PRIMARY KEY,
+    last_id INTEGER NOT NULL DEFAULT 0,
+    row_count INTEGER NOT NULL DEFAULT 0, -- rows in the last export file
+    file_path TEXT,                       -- last export file
+    exported_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,53 @@
+-- =========================
+-- DAILY SALES SUMMARIES
+-- =========================
+
+-- Kept up to date by checkout, in the same transaction as the invoice (see SalesSummaryBatch).
+-- day is the invoice's created_at date (UTC, like CURRENT_TIMESTAMP).
+CREATE TABLE IF NOT EXISTS daily_product_sales (
+    day TEXT NOT NULL,
+    product_id INTEGER NOT NULL,
+    quantity INTEGER NOT NULL DEFAULT 0,
+    revenue REAL NOT NULL DEFAULT 0,
+    line_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, product_id)
+) WITHOUT ROWID;
+CREATE INDEX IF NOT EXISTS idx_daily_product_sales_product ON daily_product_sales(product_id, day);
+
+-- category_id 0 = product without a category
+CREATE TABLE IF NOT EXISTS daily_category_sales (
+    day TEXT NOT NULL,
+    category_id INTEGER NOT NULL,
+    quantity INTEGER NOT NULL DEFAULT 0,
+    revenue REAL NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, category_id)
+) WITHOUT ROWID;
+
+CREATE TABLE IF NOT EXISTS daily_cashier_sales (
+    day TEXT NOT NULL,
+    cashier_id INTEGER NOT NULL,
+    invoice_count INTEGER NOT NULL DEFAULT 0,
+    item_count INTEGER NOT NULL DEFAULT 0,
+    revenue REAL NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, cashier_id)
+) WITHOUT ROWID;
+
+-- Backfill from the existing history
+INSERT INTO daily_product_sales (day, product_id, quantity, revenue, line_count)
+SELECT date(i.created_at), ii.product_id, SUM(ii.quantity), SUM(ii.quantity * ii.unit_price), COUNT(*)
+FROM invoice_items ii JOIN invoices i ON i.id = ii.invoice_id
+GROUP BY date(i.created_at), ii.product_id;
+
+INSERT INTO daily_category_sales (day, category_id, quantity, revenue)
+SELECT date(i.created_at), COALESCE(p.category_id, 0), SUM(ii.quantity), SUM(ii.quantity * ii.unit_price)
+FROM invoice_items ii
+JOIN invoices i ON i.id = ii.invoice_id
+JOIN products p ON p.id = ii.product_id
+GROUP BY date(i.created_at), COALESCE(p.category_id, 0);
+
+INSERT INTO daily_cashier_sales (day, cashier_id, invoice_count, item_count, revenue)
+SELECT date(i.created_at), i.cashier_id, COUNT(*),
+       COALESCE(SUM((SELECT SUM(quantity) FROM invoice_items WHERE invoice_id = i.id)), 0),
+       SUM(i.total_amount)
+FROM invoices i
+GROUP BY date(i.created_at), i.cashier_id;
@@ -0,0 +1,10 @@
+-- =========================
+-- SALES IN THE STOCK LEDGER
+-- =========================
+
+-- Checkout now logs an 'OUT' movement per invoice line (reference 'INV-<invoice id>').
+-- Backfill the sales made before, so the ledger adds up to products.stock_quantity.
+INSERT INTO stock_movements (product_id, user_id, movement_type, quantity, reference, created_at)
+SELECT ii.product_id, i.cashier_id, 'OUT', ii.quantity, 'INV-' || i.id, i.created_at
+FROM invoice_items ii JOIN invoices i ON i.id = ii.invoice_id
+ORDER BY ii.id;